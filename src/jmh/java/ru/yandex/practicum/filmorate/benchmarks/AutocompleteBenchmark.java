@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.PrefixIndex;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Автодополнение по индексу из entries строк, ранг — случайное количество лайков. Префиксы длиной 1–4
+ * символа: короткие совпадают с десятками тысяч строк, длинные — с единицами. Режим SampleTime,
+ * чтобы в результатах были перцентили (p0.99 на 1000000 строк — меньше 1 мс). like — цена лайка
+ * для индекса: обновление списков лучших записей префиксов фильма
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AutocompleteBenchmark {
+    private static final String ALPHABET = "абвгдежзиклмнопрстуфхцчшэюя";
+
+    @Param({"100000", "1000000"})
+    private int entries;
+
+    @Param({"1", "2", "4"})
+    private int prefixLength;
+
+    private PrefixIndex index;
+    private int[] likes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        likes = new int[entries + 1];
+        index = new PrefixIndex(id -> likes[id]);
+
+        for (int id = 1; id <= entries; id++) {
+            index.put(id, word(random, 4 + random.nextInt(8)) + " " + word(random, 3 + random.nextInt(8)));
+            likes[id] = random.nextInt(1000);
+        }
+        // списки лучших записей коротких префиксов строятся при первом запросе
+        for (char first : ALPHABET.toCharArray()) {
+            index.complete(String.valueOf(first), 10);
+            for (char second : ALPHABET.toCharArray()) {
+                index.complete("" + first + second, 10);
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] complete() {
+        return index.complete(word(ThreadLocalRandom.current(), prefixLength), 10);
+    }
+
+    @Benchmark
+    public void like() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(entries);
+        likes[id]++;
+        index.rankChanged(id);
+    }
+
+    private static String word(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+
+        for (int i = 0; i < length; i++) {
+            word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+
+        return word.toString();
+    }
+}
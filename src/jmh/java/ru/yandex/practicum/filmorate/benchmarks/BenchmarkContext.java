@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.util.UUID;
+
+/**
+ * Контекст приложения для бенчмарков: без веб-сервера, с отдельной базой H2 в памяти на каждый запуск
+ */
+final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.ru.yandex.practicum.filmorate=WARN"
+                );
+    }
+}
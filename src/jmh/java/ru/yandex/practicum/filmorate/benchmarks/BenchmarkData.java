@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.models.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Генерация тестовых фильмов и пользователей для бенчмарков
+ */
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static Film film(int number) {
+        return Film.builder()
+                .name("Film" + number)
+                .mpa(FilmMPA.builder().id(1 + number % 5).build())
+                .description("Description of film " + number + ", long enough to look like a real one")
+                .releaseDate(LocalDate.parse("2000-01-01").plusDays(number % 7000))
+                .duration(90 + number % 60)
+                .genre(Set.of(1 + number % 6))
+                .build();
+    }
+
+    static List<Film> films(int count) {
+        List<Film> films = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            films.add(film(i));
+        }
+
+        return films;
+    }
+
+    static User user(int number) {
+        return User.builder()
+                .email("user" + number + "@mail.ru")
+                .login("user" + number)
+                .name("User Name " + number)
+                .birthday(LocalDate.parse("1970-01-01").plusDays(number % 15000))
+                .build();
+    }
+
+    static List<User> users(int firstNumber, int count) {
+        List<User> users = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            users.add(user(firstNumber + i));
+        }
+
+        return users;
+    }
+
+    /**
+     * Случайные id из диапазона [1, maxId]
+     */
+    static IdSet randomIds(Random random, int count, int maxId) {
+        IdSet ids = new IdSet();
+
+        while (ids.size() < Math.min(count, maxId)) {
+            ids.add(1 + random.nextInt(maxId));
+        }
+
+        return ids;
+    }
+}
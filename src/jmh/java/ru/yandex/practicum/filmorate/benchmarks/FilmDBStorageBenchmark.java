@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение фильмов из базы: films фильмов, у каждого до 100 лайков от 5000 пользователей и по жанру.
+ * Страницы по диапазону: узкий — месяц дат выхода (идет по индексу даты), широкий — половина
+ * продолжительностей (идет по первичному ключу до заполнения страницы)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmDBStorageBenchmark {
+    private static final int USERS_COUNT = 5000;
+    private static final int PAGE_SIZE = 100;
+    private static final LocalDate FIRST_RELEASE_DATE = LocalDate.parse("2000-01-01");
+
+    @Param({"1000", "10000"})
+    private int films;
+
+    private ConfigurableApplicationContext context;
+    private FilmStorage storage;
+    private int[] filmIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        storage = context.getBean("filmDBStorage", FilmStorage.class);
+        UserStorage userStorage = context.getBean("userDBStorage", UserStorage.class);
+        Random random = new Random(42);
+
+        userStorage.addAll(BenchmarkData.users(0, USERS_COUNT));
+        List<Film> added = storage.addAll(BenchmarkData.films(films));
+        filmIds = added.stream().mapToInt(Film::getId).toArray();
+        // жанры сохраняет сам addAll
+        List<Like> likes = new ArrayList<>();
+
+        for (Film film : added) {
+            for (int userId : BenchmarkData.randomIds(random, random.nextInt(100), USERS_COUNT)) {
+                likes.add(Like.builder().filmId(film.getId()).userId(userId).build());
+            }
+        }
+        storage.addLikes(likes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Film findById() {
+        return storage.findById(filmIds[ThreadLocalRandom.current().nextInt(filmIds.length)]);
+    }
+
+    @Benchmark
+    public Collection<Film> getAll() {
+        return storage.getAll();
+    }
+
+    @Benchmark
+    public List<Film> getPageInNarrowRange() {
+        LocalDate from = FIRST_RELEASE_DATE.plusDays(ThreadLocalRandom.current().nextInt(Math.min(films, 7000)));
+
+        return storage.getPageInRange(from, from.plusDays(30), null, null, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Film> getPageInWideRange() {
+        return storage.getPageInRange(null, null, 90, 119, ThreadLocalRandom.current().nextInt(films / 2),
+                PAGE_SIZE);
+    }
+}
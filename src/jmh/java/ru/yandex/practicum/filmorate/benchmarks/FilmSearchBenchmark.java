@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.storage.FilmSearchIndex;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск по индексу из films фильмов: название из 3 и описание из 20 слов словаря, слова выбираются
+ * с перекосом, как в живом тексте. Режим SampleTime, чтобы в результатах были перцентили. После построения
+ * индекса печатается занимаемая им память (JOL) и размер сжатых списков фильмов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmSearchBenchmark {
+    private static final String[] STEMS = {
+            "звезд", "войн", "путешеств", "корабл", "планет", "любов", "город", "ночн", "дорог", "тайн", "море",
+            "горизонт", "машин", "времен", "памят", "семь", "друг", "враг", "побег", "охот", "остров", "небесн",
+            "ветр", "огн", "зим", "лет", "весн", "осен", "солдат", "капитан", "доктор", "детектив", "убийств",
+            "сокровищ", "пустын", "лес", "рек", "гор", "мечт", "надежд"
+    };
+    private static final String[] ENDINGS = {"", "а", "ы", "ов", "ами", "ой", "ый", "ая", "е", "у"};
+
+    @Param({"10000", "100000"})
+    private int films;
+
+    private FilmSearchIndex index;
+    private String[] words;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        words = new String[STEMS.length * 50];
+
+        for (int i = 0; i < words.length; i++) {
+            words[i] = STEMS[i % STEMS.length] + (i < STEMS.length ? "" : Integer.toString(i / STEMS.length))
+                    + ENDINGS[i % ENDINGS.length];
+        }
+        index = new FilmSearchIndex();
+
+        for (int id = 1; id <= films; id++) {
+            index.putFilm(id, text(random, 3), text(random, 20));
+        }
+        System.out.printf("%n%d films: %d terms, postings %d bytes, index %d bytes%n", films,
+                index.getTermCount(), index.getPostingsSizeInBytes(), GraphLayout.parseInstance(index).totalSize());
+    }
+
+    @Benchmark
+    public int[] searchOneWord() {
+        return index.search(word(ThreadLocalRandom.current()), 10);
+    }
+
+    @Benchmark
+    public int[] searchThreeWords() {
+        Random random = ThreadLocalRandom.current();
+
+        return index.search(word(random) + " " + word(random) + " " + word(random), 10);
+    }
+
+    private String text(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            text.append(word(random)).append(' ');
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Частые слова в начале словаря: квадрат равномерного числа смещает выбор к меньшим индексам
+     */
+    private String word(Random random) {
+        double skew = random.nextDouble();
+
+        return words[(int) (skew * skew * words.length)];
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.validators.FilmValidator;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmValidatorBenchmark {
+    private Film film;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        film = BenchmarkData.film(1);
+    }
+
+    @Benchmark
+    public Film validate() {
+        FilmValidator.validate(film);
+
+        return film;
+    }
+}
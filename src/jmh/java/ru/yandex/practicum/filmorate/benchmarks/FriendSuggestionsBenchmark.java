@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.FriendSuggestions;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Рекомендация друзей на графе из users пользователей, у каждого degree случайных друзей. Режим SampleTime,
+ * чтобы в результатах были перцентили (p0.99 для пользователя с 1000 друзей — не больше 20 мс)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendSuggestionsBenchmark {
+    @Param({"10000"})
+    private int users;
+
+    @Param({"100", "1000"})
+    private int degree;
+
+    private int[][] friends;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        friends = new int[users + 1][];
+        friends[0] = new int[0];
+
+        for (int id = 1; id <= users; id++) {
+            friends[id] = BenchmarkData.randomIds(random, degree, users).toIntArray();
+        }
+    }
+
+    @Benchmark
+    public int[] suggest() {
+        int userId = 1 + ThreadLocalRandom.current().nextInt(users);
+
+        return FriendSuggestions.suggest(userId, id -> friends[id], 10);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.models.*;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Добавление size фильмов/пользователей по одному и одной пачкой, добавление size лайков пачкой.
+ * Одна операция — добавление всех size объектов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+    private static final int LIKE_FILMS_COUNT = 200;
+    private static final int LIKE_USERS_COUNT = 10_000;
+
+    @Param({"1000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+    private int[] likeFilmIds;
+    private int[] likeUserIds;
+    private int userSequence;
+    private long likeSequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        filmStorage = context.getBean("filmDBStorage", FilmStorage.class);
+        userStorage = context.getBean("userDBStorage", UserStorage.class);
+        likeFilmIds = filmStorage.addAll(BenchmarkData.films(LIKE_FILMS_COUNT)).stream().mapToInt(Film::getId).toArray();
+        likeUserIds = userStorage.addAll(newUsers(LIKE_USERS_COUNT)).stream().mapToInt(User::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int addFilmsOneByOne() {
+        int lastId = 0;
+
+        for (Film film : BenchmarkData.films(size)) {
+            lastId = filmStorage.add(film).getId();
+        }
+
+        return lastId;
+    }
+
+    @Benchmark
+    public List<Film> addFilmsBatch() {
+        return filmStorage.addAll(BenchmarkData.films(size));
+    }
+
+    @Benchmark
+    public int addUsersOneByOne() {
+        int lastId = 0;
+
+        for (User user : newUsers(size)) {
+            lastId = userStorage.add(user).getId();
+        }
+
+        return lastId;
+    }
+
+    @Benchmark
+    public List<User> addUsersBatch() {
+        return userStorage.addAll(newUsers(size));
+    }
+
+    /**
+     * Пары (фильм, пользователь) перебираются по кругу, после исчерпания лайки возвращаются как ALREADY_EXISTS
+     */
+    @Benchmark
+    public List<LikeResult> addLikesBatch() {
+        List<Like> likes = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++, likeSequence++) {
+            likes.add(Like.builder()
+                    .filmId(likeFilmIds[(int) (likeSequence % LIKE_FILMS_COUNT)])
+                    .userId(likeUserIds[(int) (likeSequence / LIKE_FILMS_COUNT % LIKE_USERS_COUNT)])
+                    .build());
+        }
+
+        return filmStorage.addLikes(likes);
+    }
+
+    private List<User> newUsers(int count) {
+        List<User> users = BenchmarkData.users(userSequence, count);
+        userSequence += count;
+
+        return users;
+    }
+}
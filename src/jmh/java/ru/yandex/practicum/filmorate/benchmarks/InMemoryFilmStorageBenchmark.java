@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Топ популярных фильмов в памяти: films фильмов, у каждого до 200 лайков, у первого — POPULAR_LIKES.
+ * like ставит лайк первому фильму: набор лайков меняется на месте, время не зависит от их количества
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryFilmStorageBenchmark {
+    private static final int POPULAR_LIKES = 100_000;
+    private static final int USERS = 1_000_000;
+
+    @Param({"1000", "10000"})
+    private int films;
+
+    private InMemoryFilmStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        storage = new InMemoryFilmStorage();
+
+        for (Film film : BenchmarkData.films(films)) {
+            film.setLikes(BenchmarkData.randomIds(random, random.nextInt(200), 100_000));
+            storage.add(film);
+        }
+        storage.addLikes(BenchmarkData.randomIds(random, POPULAR_LIKES, USERS).stream()
+                .map(userId -> Like.builder().filmId(1).userId(userId).build())
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return storage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<LikeResult> like() {
+        int userId = ThreadLocalRandom.current().nextInt(USERS);
+
+        return storage.addLikes(List.of(Like.builder().filmId(1).userId(userId).build()));
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка size фильмов/пользователей в пустое хранилище в памяти. Каждое добавление проверяет дубликат,
+ * поэтому время на один объект должно оставаться постоянным при росте size. addAllFilms загружает фильмы
+ * одной пачкой: поисковый индекс копирует список каждого терма один раз на пачку
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryImportBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private List<Film> films;
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        films = BenchmarkData.films(size);
+        users = BenchmarkData.users(0, size);
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage addFilms() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        films.forEach(storage::add);
+
+        return storage;
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage addAllFilms() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        storage.addAll(films);
+
+        return storage;
+    }
+
+    @Benchmark
+    public InMemoryUserStorage addUsers() {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        users.forEach(storage::add);
+
+        return storage;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Смешанная нагрузка на InMemoryUserStorage: users пользователей по 20 подтвержденных друзей, в группе
+ * по 3 потока читают общих друзей и друзей, 1 поток добавляет, подтверждает и удаляет дружбу. Масштабирование
+ * по ядрам проверяется числом потоков на каждый метод группы: -Djmh.args="InMemoryUserStorageBenchmark -tg 6,6,2"
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryUserStorageBenchmark {
+    private static final int FRIENDS_PER_USER = 20;
+
+    @Param({"10000"})
+    private int users;
+
+    private InMemoryUserStorage storage;
+    private int[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        storage = new InMemoryUserStorage();
+        userIds = storage.addAll(BenchmarkData.users(0, users)).stream().mapToInt(User::getId).toArray();
+
+        for (int userId : userIds) {
+            for (int k = 0; k < FRIENDS_PER_USER; k++) {
+                int friendId = userIds[random.nextInt(users)];
+                if (friendId != userId) {
+                    storage.addFriend(userId, friendId);
+                    storage.confirmFriendship(friendId, userId);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Set<User> readCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        return storage.getCommonFriends(userIds[random.nextInt(users)], userIds[random.nextInt(users)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public List<User> readFriends() {
+        return storage.getAllUsersFriendsById(userIds[ThreadLocalRandom.current().nextInt(users)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public User writeFriendship() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userId = userIds[random.nextInt(users)];
+        int friendId = userIds[random.nextInt(users)];
+
+        storage.addFriend(userId, friendId);
+        storage.confirmFriendship(friendId, userId);
+
+        return storage.deleteFriendToTheUser(userId, friendId);
+    }
+}
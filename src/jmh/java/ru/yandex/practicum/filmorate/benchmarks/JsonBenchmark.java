@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.User;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация тем же ObjectMapper, что и в контроллерах: фильм с likes лайками, пользователь со 150 друзьями
+ * и страница из 100 фильмов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"100", "10000"})
+    private int likes;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private Film film;
+    private User user;
+    private List<Film> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        objectMapper = context.getBean(ObjectMapper.class);
+        Random random = new Random(42);
+
+        film = BenchmarkData.film(1);
+        film.setLikes(BenchmarkData.randomIds(random, likes, 1_000_000));
+        user = BenchmarkData.user(1);
+        user.setFriendsId(BenchmarkData.randomIds(random, 150, 1_000_000));
+        page = BenchmarkData.films(100);
+
+        for (Film pageFilm : page) {
+            pageFilm.setLikes(BenchmarkData.randomIds(random, 100, 1_000_000));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializeFilm() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeFilmsPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
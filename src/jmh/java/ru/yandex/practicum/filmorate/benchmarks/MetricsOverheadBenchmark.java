@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы метрик операций: FilmService.findFilmById через прокси с OperationMetricsAspect
+ * и тот же вызов напрямую. Фильм берется из кэша, поэтому разница — почти целиком стоимость метрик
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    private ConfigurableApplicationContext context;
+    private FilmService instrumented;
+    private FilmService raw;
+    private int filmId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        instrumented = context.getBean(FilmService.class);
+        raw = (FilmService) AopProxyUtils.getSingletonTarget(instrumented);
+        filmId = instrumented.addFilm(BenchmarkData.film(0)).getId();
+        instrumented.findFilmById(filmId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Film instrumented() {
+        return instrumented.findFilmById(filmId);
+    }
+
+    @Benchmark
+    public Film raw() {
+        return raw.findFilmById(filmId);
+    }
+}
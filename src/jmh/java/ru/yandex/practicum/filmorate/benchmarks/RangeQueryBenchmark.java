@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.storage.RangeIndex;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильмы с датой выхода из окна в WINDOW дней среди films фильмов: по RangeIndex и полным перебором.
+ * Даты идут по фильму в день, поэтому окно всегда содержит WINDOW фильмов: время по индексу почти не растет
+ * с размером (O(log n + k)), перебор растет линейно
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeQueryBenchmark {
+    private static final int WINDOW = 30;
+
+    @Param({"10000", "100000", "1000000"})
+    private int films;
+
+    private RangeIndex index;
+    private int[] releaseDays;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        index = new RangeIndex();
+        releaseDays = new int[films + 1];
+
+        for (int id = 1; id <= films; id++) {
+            releaseDays[id] = id;
+        }
+        // порядок id не совпадает с порядком дат
+        for (int id = films; id > 1; id--) {
+            int other = 1 + random.nextInt(id);
+            int day = releaseDays[id];
+            releaseDays[id] = releaseDays[other];
+            releaseDays[other] = day;
+        }
+
+        for (int id = 1; id <= films; id++) {
+            index.put(id, releaseDays[id]);
+        }
+    }
+
+    @Benchmark
+    public IdSet indexRange() {
+        int from = from();
+
+        return index.range(from, from + WINDOW - 1);
+    }
+
+    @Benchmark
+    public IdSet fullScan() {
+        int from = from();
+        int to = from + WINDOW - 1;
+        IdSet ids = new IdSet();
+
+        for (int id = 1; id <= films; id++) {
+            if (releaseDays[id] >= from && releaseDays[id] <= to) {
+                ids.add(id);
+            }
+        }
+
+        return ids;
+    }
+
+    private int from() {
+        return 1 + ThreadLocalRandom.current().nextInt(films - WINDOW + 1);
+    }
+}
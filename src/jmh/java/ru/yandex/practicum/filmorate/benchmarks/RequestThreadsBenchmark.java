@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.VirtualThreadsCustomizer;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный тест режимов обработки запросов: 400 клиентов одновременно запрашивают /films/popular
+ * и /users/{id}/friends у приложения с пулом Tomcat (200 платформенных потоков) и с виртуальными потоками
+ * и ограничением JDBC. Режим SampleTime дает и пропускную способность, и перцентили времени ответа.
+ * Режим virtual запускается только на JDK 21+
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(400)
+@Fork(1)
+public class RequestThreadsBenchmark {
+    private static final int USERS = 2000;
+    private static final int FRIENDS = 50;
+    private static final int FILMS = 2000;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI popular;
+    private URI[] friends;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(threads);
+        context = new SpringApplicationBuilder(FilmorateApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--logging.level.ru.yandex.practicum.filmorate=WARN",
+                "--filmorate.threads.virtual=" + virtual,
+                "--filmorate.db.max-concurrency=" + (virtual ? 10 : 0)
+        );
+
+        if (virtual && context.getBeanNamesForType(VirtualThreadsCustomizer.class).length == 0) {
+            throw new IllegalStateException("Virtual threads mode is not active");
+        }
+        UserService userService = context.getBean(UserService.class);
+        FilmService filmService = context.getBean(FilmService.class);
+        userService.addUsers(BenchmarkData.users(0, USERS));
+        filmService.addFilms(BenchmarkData.films(FILMS));
+        Random random = new Random(42);
+
+        for (int userId = 1; userId <= USERS; userId++) {
+            for (int friendId : BenchmarkData.randomIds(random, FRIENDS, USERS).toIntArray()) {
+                if (friendId != userId) {
+                    userService.addNewFriendToTheUser(userId, friendId);
+                }
+            }
+            filmService.addLikeToFilm(1 + random.nextInt(FILMS), userId);
+        }
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+        popular = URI.create("http://localhost:" + port + "/films/popular?count=10");
+        friends = new URI[USERS];
+
+        for (int i = 0; i < USERS; i++) {
+            friends[i] = URI.create("http://localhost:" + port + "/users/" + (i + 1) + "/friends");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int popularFilms() throws IOException, InterruptedException {
+        return get(popular);
+    }
+
+    @Benchmark
+    public int usersFriends(ThreadIndex index) throws IOException, InterruptedException {
+        return get(friends[index.next(USERS)]);
+    }
+
+    private int get(URI uri) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(uri + " answered " + response.statusCode());
+        }
+
+        return response.statusCode();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        private final Random random = new Random();
+
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+}
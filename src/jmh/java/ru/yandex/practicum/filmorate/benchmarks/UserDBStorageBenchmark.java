@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.storage.FriendshipIndex;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общие друзья: users пользователей, у каждого FRIENDS_PER_USER подтвержденных друзей с шагом FRIEND_STEP,
+ * у пар (id, id + FRIEND_STEP) друзья почти совпадают
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDBStorageBenchmark {
+    private static final int FRIENDS_PER_USER = 50;
+    private static final int FRIEND_STEP = 97;
+
+    @Param({"5000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserStorage storage;
+    private int[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        storage = context.getBean("userDBStorage", UserStorage.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        userIds = storage.addAll(BenchmarkData.users(0, users)).stream().mapToInt(User::getId).toArray();
+        List<Object[]> friendship = new ArrayList<>();
+
+        for (int i = 0; i < users; i++) {
+            for (int k = 1; k <= FRIENDS_PER_USER; k++) {
+                friendship.add(new Object[]{userIds[i], userIds[(i + k * FRIEND_STEP) % users]});
+            }
+        }
+        jdbcTemplate.batchUpdate("MERGE INTO friendship (user_id, friend_id, accept) KEY (user_id, friend_id) " +
+                "VALUES (?, ?, TRUE)", friendship);
+        // строки добавлены в обход UserDBStorage
+        context.getBean(FriendshipIndex.class).refresh();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Set<User> getCommonFriends() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+
+        return storage.getCommonFriends(userIds[i], userIds[(i + FRIEND_STEP) % users]);
+    }
+
+    @Benchmark
+    public List<User> getAllUsersFriendsById() {
+        return storage.getAllUsersFriendsById(userIds[ThreadLocalRandom.current().nextInt(users)]);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Режим виртуальных потоков (filmorate.threads.virtual=true, профиль virtual-threads): Tomcat обрабатывает
+ * каждый запрос в новом виртуальном потоке, и вызовы хранилищ внутри запроса блокируют только его.
+ * Нужен JDK 21+; проект собирается под Java 11, поэтому исполнитель создается через рефлексию
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.threads.virtual", havingValue = "true")
+public class VirtualThreadsCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+    @Override
+    public void customize(ProtocolHandler protocolHandler) {
+        protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+        log.info("Tomcat requests run on virtual threads");
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads require JDK 21+, running on " + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't create virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.CacheService;
+import ru.yandex.practicum.filmorate.service.DictionaryService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+    private final DictionaryService dictionaryService;
+    private final FilmService filmService;
+    private final CacheService cacheService;
+    private final UserService userService;
+
+    @Autowired
+    public AdminController(
+            DictionaryService dictionaryService,
+            FilmService filmService,
+            CacheService cacheService,
+            UserService userService
+    ) {
+        this.dictionaryService = dictionaryService;
+        this.filmService = filmService;
+        this.cacheService = cacheService;
+        this.userService = userService;
+    }
+
+    @PostMapping("/dictionaries/refresh")
+    public Map<String, Integer> refreshDictionaries() {
+        return dictionaryService.refreshDictionaries();
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Map<String, Number>> getCacheStats() {
+        return cacheService.getCacheStats();
+    }
+
+    @PostMapping("/likes/reconcile")
+    public Map<String, Integer> reconcileLikeCounts() {
+        return Map.of("fixed", filmService.reconcileLikeCounts());
+    }
+
+    @PostMapping("/friendship/refresh")
+    public Map<String, Integer> refreshFriendshipIndex() {
+        return Map.of("rows", userService.refreshFriendshipIndex());
+    }
+}
@@ -1,13 +1,29 @@
 package ru.yandex.practicum.filmorate.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exceptions.*;
 import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
@@ -15,23 +31,71 @@ import java.util.*;
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * С любым из фильтров по дате выхода или продолжительности ответ всегда постраничный
+     */
     @GetMapping
-    public Collection<Film> findAll() {
-        return filmService.getAllFilms();
+    public Collection<Film> findAll(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+            @RequestParam(required = false) Integer minDuration,
+            @RequestParam(required = false) Integer maxDuration
+    ) {
+        if (releasedFrom != null || releasedTo != null || minDuration != null || maxDuration != null) {
+            return filmService.getFilmsPageInRange(releasedFrom, releasedTo, minDuration, maxDuration, after, limit);
+        }
+
+        if (after == null && limit == null) {
+            return filmService.getAllFilms();
+        }
+
+        return filmService.getFilmsPage(after, limit);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                filmService.forEachFilm(film -> {
+                    try {
+                        writer.write(film);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Если ETag из If-None-Match совпадает с версией фильма, отвечает 304 без загрузки фильма
+     */
     @GetMapping("/{id}")
-    public Film findFilmById(@PathVariable Integer id) {
+    public Film findFilmById(@PathVariable Integer id, WebRequest request) {
         if (id == null) {
             throw new IncorrectParameterException("id");
         }
 
+        if (request.checkNotModified(filmService.getFilmVersion(id))) {
+            return null;
+        }
+
         return filmService.findFilmById(id);
     }
 
@@ -40,6 +104,11 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    @PostMapping("/batch")
+    public List<Film> addFilms(@RequestBody List<Film> films) {
+        return filmService.addFilms(films);
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         return filmService.updateFilm(film);
@@ -58,6 +127,14 @@ public class FilmController {
         return filmService.addLikeToFilm(id, userId);
     }
 
+    @PostMapping(value = "/likes/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public List<LikeResult> addLikes(InputStream body) throws IOException {
+        try (MappingIterator<Like> likes = objectMapper.readerFor(Like.class).readValues(body)) {
+            return filmService.addLikes(likes);
+        }
+    }
+
     @DeleteMapping("{id}/like/{userId}")
     public Film deleteLikeToFilm(@PathVariable Integer id, @PathVariable Integer userId) {
         if (id == null) {
@@ -73,8 +150,31 @@ public class FilmController {
 
     @GetMapping("/popular")
     public List<Film> getPopularFilms(
-            @RequestParam(defaultValue = "10", required = false) Integer count
+            @RequestParam(defaultValue = "10", required = false) Integer count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer year,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(filmService.getPopularFilmsVersion(count, genreId, year))) {
+            return null;
+        }
+
+        return filmService.getPopularFilms(count, genreId, year);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10", required = false) Integer limit
+    ) {
+        return filmService.searchFilms(q, limit);
+    }
+
+    @GetMapping("/autocomplete")
+    public List<Film> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10", required = false) Integer limit
     ) {
-        return filmService.getPopularFilms(count);
+        return filmService.autocomplete(prefix, limit);
     }
 }
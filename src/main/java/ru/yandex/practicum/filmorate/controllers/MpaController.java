@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.service.DictionaryService;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/mpa")
+public class MpaController {
+    private final DictionaryService dictionaryService;
+    private final CacheControl cacheControl;
+
+    @Autowired
+    public MpaController(
+            DictionaryService dictionaryService,
+            @Value("${filmorate.dictionary.cache-max-age}") Duration cacheMaxAge
+    ) {
+        this.dictionaryService = dictionaryService;
+        this.cacheControl = CacheControl.maxAge(cacheMaxAge).cachePublic();
+    }
+
+    @GetMapping
+    public ResponseEntity<List<FilmMPA>> findAll() {
+        return ResponseEntity.ok().cacheControl(cacheControl).body(dictionaryService.getAllMpa());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<FilmMPA> findMpaById(@PathVariable(required = false) Integer id) {
+        if (id == null) {
+            throw new IncorrectParameterException("id");
+        }
+
+        return ResponseEntity.ok().cacheControl(cacheControl).body(dictionaryService.findMpaById(id));
+    }
+}
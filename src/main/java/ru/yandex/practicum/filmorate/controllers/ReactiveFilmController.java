@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.service.ReactiveReadService;
+
+/**
+ * Неблокирующее чтение фильмов потоком NDJSON, следующий фильм пишется после отправки предыдущего
+ */
+@RestController
+@RequestMapping(value = "/reactive/films", produces = MediaType.APPLICATION_NDJSON_VALUE)
+@ConditionalOnProperty(name = "filmorate.reactive.enabled", havingValue = "true")
+public class ReactiveFilmController {
+    private final ReactiveReadService readService;
+
+    @Autowired
+    public ReactiveFilmController(ReactiveReadService readService) {
+        this.readService = readService;
+    }
+
+    @GetMapping
+    public Flux<Film> findAll() {
+        return readService.getAllFilms();
+    }
+
+    @GetMapping("/popular")
+    public Flux<Film> getPopularFilms(
+            @RequestParam(defaultValue = "10", required = false) Integer count
+    ) {
+        return readService.getPopularFilms(count);
+    }
+}
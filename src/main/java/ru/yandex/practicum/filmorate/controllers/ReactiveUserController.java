@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.service.ReactiveReadService;
+
+/**
+ * Неблокирующее чтение друзей пользователя потоком NDJSON
+ */
+@RestController
+@RequestMapping(value = "/reactive/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+@ConditionalOnProperty(name = "filmorate.reactive.enabled", havingValue = "true")
+public class ReactiveUserController {
+    private final ReactiveReadService readService;
+
+    @Autowired
+    public ReactiveUserController(ReactiveReadService readService) {
+        this.readService = readService;
+    }
+
+    @GetMapping("{userId}/friends")
+    public Flux<User> getUsersFriends(
+            @PathVariable Integer userId,
+            @RequestParam(defaultValue = "true") boolean withFriendsId
+    ) {
+        return readService.getAllUsersFriendsById(userId, withFriendsId);
+    }
+
+    @GetMapping("{userId}/friends/common/{friendId}")
+    public Flux<User> getCommonFriends(
+            @PathVariable Integer userId,
+            @PathVariable Integer friendId,
+            @RequestParam(defaultValue = "true") boolean withFriendsId
+    ) {
+        return readService.getCommonFriends(userId, friendId, withFriendsId);
+    }
+}
@@ -1,13 +1,26 @@
 package ru.yandex.practicum.filmorate.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.Recommendations;
 import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -17,15 +30,54 @@ import java.util.Set;
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(
+            UserService userService,
+            RecommendationService recommendationService,
+            ObjectMapper objectMapper
+    ) {
         this.userService = userService;
+        this.recommendationService = recommendationService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public Collection<User> findAll() {
-        return userService.getAllUsers();
+    public Collection<User> findAll(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean withFriendsId
+    ) {
+        if (after == null && limit == null) {
+            return userService.getAllUsers(withFriendsId);
+        }
+
+        return userService.getUsersPage(after, limit, withFriendsId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(
+            @RequestParam(defaultValue = "true") boolean withFriendsId
+    ) {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                userService.forEachUser(withFriendsId, user -> {
+                    try {
+                        writer.write(user);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
@@ -37,11 +89,26 @@ public class UserController {
         return userService.findUserById(id);
     }
 
+    @GetMapping("/by-email/{email}")
+    public User getUserByEmail(@PathVariable String email) {
+        return userService.findUserByEmail(email);
+    }
+
+    @GetMapping("/by-login/{login}")
+    public User getUserByLogin(@PathVariable String login) {
+        return userService.findUserByLogin(login);
+    }
+
     @PostMapping
     public User addUser(@Valid @RequestBody User user) {
         return userService.addUser(user);
     }
 
+    @PostMapping("/batch")
+    public List<User> addUsers(@RequestBody List<User> users) {
+        return userService.addUsers(users);
+    }
+
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
         return userService.updateUser(user);
@@ -97,18 +164,52 @@ public class UserController {
     }
 
     @GetMapping("{userId}/friends")
-    public List<User> getUsersFriends(@PathVariable(required = false) Integer userId) {
+    public List<User> getUsersFriends(
+            @PathVariable(required = false) Integer userId,
+            @RequestParam(defaultValue = "true") boolean withFriendsId,
+            WebRequest request
+    ) {
         if (userId == null) {
             throw new IncorrectParameterException("userId");
         }
 
-        return userService.getAllUsersFriendsById(userId);
+        if (request.checkNotModified(userService.getFriendsVersion(userId) + (withFriendsId ? "-ids" : ""))) {
+            return null;
+        }
+
+        return userService.getAllUsersFriendsById(userId, withFriendsId);
+    }
+
+    @GetMapping("{userId}/friends/suggestions")
+    public List<User> getFriendSuggestions(
+            @PathVariable(required = false) Integer userId,
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(defaultValue = "true") boolean withFriendsId
+    ) {
+        if (userId == null) {
+            throw new IncorrectParameterException("userId");
+        }
+
+        return userService.getFriendSuggestions(userId, limit, withFriendsId);
+    }
+
+    /**
+     * Запрос идет на каждое нажатие клавиши, поэтому friendsId по умолчанию не загружается
+     */
+    @GetMapping("/autocomplete")
+    public List<User> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(defaultValue = "false") boolean withFriendsId
+    ) {
+        return userService.autocomplete(prefix, limit, withFriendsId);
     }
 
     @GetMapping("{userId}/friends/common/{friendId}")
     public Set<User> getCommonFriends(
             @PathVariable(required = false) Integer userId,
-            @PathVariable(required = false) Integer friendId
+            @PathVariable(required = false) Integer friendId,
+            @RequestParam(defaultValue = "true") boolean withFriendsId
     ) {
         if (userId == null) {
             throw new IncorrectParameterException("userId");
@@ -118,6 +219,24 @@ public class UserController {
             throw new IncorrectParameterException("friendId");
         }
 
-        return userService.getCommonFriends(userId, friendId);
+        return userService.getCommonFriends(userId, friendId, withFriendsId);
+    }
+
+    /**
+     * Заголовок X-Recommendations-Truncated: true, если поиск похожих пользователей не уложился в бюджет времени
+     */
+    @GetMapping("{userId}/recommendations")
+    public ResponseEntity<List<Film>> getRecommendations(
+            @PathVariable(required = false) Integer userId,
+            @RequestParam(defaultValue = "10") Integer limit
+    ) {
+        if (userId == null) {
+            throw new IncorrectParameterException("userId");
+        }
+        Recommendations recommendations = recommendationService.getRecommendations(userId, limit);
+
+        return ResponseEntity.ok()
+                .header("X-Recommendations-Truncated", String.valueOf(recommendations.isTruncated()))
+                .body(recommendations.getFilms());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+public class GenreNotFoundException extends RuntimeException {
+    public GenreNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+public class MpaNotFoundException extends RuntimeException {
+    public MpaNotFoundException(String message) {
+        super(message);
+    }
+}
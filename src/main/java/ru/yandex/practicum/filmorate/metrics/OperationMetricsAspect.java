@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики каждой публичной операции FilmService, UserService, FilmDBStorage и UserDBStorage:
+ * таймер filmorate.operation (количество вызовов, время, перцентили 0.5/0.95/0.99 и гистограмма для Prometheus)
+ * и счетчик filmorate.operation.errors с типом исключения. Таймеры создаются один раз на метод, счетчики — один раз
+ * на метод и тип исключения, на горячем пути остается поиск в ConcurrentHashMap и запись в таймер
+ */
+@Aspect
+@Component
+public class OperationMetricsAspect {
+    static final String TIMER_NAME = "filmorate.operation";
+    static final String ERRORS_NAME = "filmorate.operation.errors";
+
+    private final MeterRegistry registry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Method, Map<Class<?>, Counter>> errors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OperationMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.service.FilmService.*(..))" +
+            " || execution(public * ru.yandex.practicum.filmorate.service.UserService.*(..))" +
+            " || execution(public * ru.yandex.practicum.filmorate.storage.FilmDBStorage.*(..))" +
+            " || execution(public * ru.yandex.practicum.filmorate.storage.UserDBStorage.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.computeIfAbsent(method, this::createTimer);
+        long start = System.nanoTime();
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            errors.computeIfAbsent(method, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(e.getClass(), type -> createErrorCounter(method, type))
+                    .increment();
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer createTimer(Method method) {
+        return Timer.builder(TIMER_NAME)
+                .description("Service and storage operation latency")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter createErrorCounter(Method method, Class<?> exceptionType) {
+        return Counter.builder(ERRORS_NAME)
+                .description("Operations failed with an exception")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .tag("exception", exceptionType.getSimpleName())
+                .register(registry);
+    }
+}
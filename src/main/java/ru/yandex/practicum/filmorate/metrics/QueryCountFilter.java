@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Считает SQL-запросы каждого HTTP-запроса и пишет предупреждение, если их больше
+ * filmorate.db.query-warn-threshold. Заголовки X-DB-Queries и X-DB-Time-Ms добавляет QueryCountResponseAdvice
+ */
+@Slf4j
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+    private final int warnThreshold;
+
+    @Autowired
+    public QueryCountFilter(@Value("${filmorate.db.query-warn-threshold}") int warnThreshold) {
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryCounter.start();
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryCounter.stop();
+
+            if (stats.getQueries() > warnThreshold) {
+                log.warn("{} {} issued {} SQL queries in {} ms, threshold is {}", request.getMethod(),
+                        request.getRequestURI(), stats.getQueries(), stats.getTimeMs(), warnThreshold);
+            }
+        }
+    }
+}
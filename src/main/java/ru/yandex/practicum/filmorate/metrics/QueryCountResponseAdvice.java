@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Добавляет в ответ X-DB-Queries и X-DB-Time-Ms перед записью тела, пока заголовки еще можно менять.
+ * Потоковые ответы (NDJSON) читают базу уже после отправки заголовков, для них заголовков нет
+ */
+@RestControllerAdvice
+public class QueryCountResponseAdvice implements ResponseBodyAdvice<Object> {
+    public static final String QUERIES_HEADER = "X-DB-Queries";
+    public static final String TIME_HEADER = "X-DB-Time-Ms";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            MethodParameter returnType,
+            MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request,
+            ServerHttpResponse response
+    ) {
+        QueryStats stats = QueryCounter.current();
+
+        if (stats != null) {
+            response.getHeaders().set(QUERIES_HEADER, String.valueOf(stats.getQueries()));
+            response.getHeaders().set(TIME_HEADER, String.valueOf(stats.getTimeMs()));
+        }
+
+        return body;
+    }
+}
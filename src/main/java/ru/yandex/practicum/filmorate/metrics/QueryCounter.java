@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+/**
+ * Счетчик SQL-запросов текущего потока. QueryCountingDataSource отмечает здесь каждый выполненный запрос,
+ * если для потока начат подсчет: QueryCountFilter начинает его на время HTTP-запроса, тесты — через measure()
+ */
+public final class QueryCounter {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /**
+     * Посчитать запросы, выполненные действием в текущем потоке
+     *
+     * @param action
+     * @return возвращает количество и время запросов действия
+     */
+    public static QueryStats measure(Runnable action) {
+        QueryStats previous = CURRENT.get();
+        QueryStats stats = start();
+
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                stop();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+
+        return stats;
+    }
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+
+        return stats;
+    }
+
+    /**
+     * @return возвращает статистику текущего потока или null, если подсчет не начат
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedNanos) {
+        QueryStats stats = CURRENT.get();
+
+        if (stats != null) {
+            stats.record(elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Количество SQL-запросов и суммарное время их выполнения в рамках одного HTTP-запроса или QueryCounter.measure.
+ * Используется одним потоком
+ */
+public class QueryStats {
+    private int queries;
+    private long nanos;
+
+    void record(long elapsedNanos) {
+        queries++;
+        nanos += elapsedNanos;
+    }
+
+    public int getQueries() {
+        return queries;
+    }
+
+    public long getTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
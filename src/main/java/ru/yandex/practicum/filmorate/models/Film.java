@@ -28,7 +28,7 @@ public class Film {
     @EqualsAndHashCode.Exclude
     private int duration;
     @EqualsAndHashCode.Exclude
-    private Set<Integer> likes;
+    private IdSet likes;
     @EqualsAndHashCode.Exclude
     private Set<Integer> genres;
 
@@ -47,13 +47,9 @@ public class Film {
         this.releaseDate = releaseDate;
         this.mpa = mpa;
         this.duration = duration;
-        this.likes = likes;
+        this.likes = likes == null ? new IdSet() : IdSet.from(likes);
         this.genres = genre;
 
-        if (this.likes == null) {
-            this.likes = new HashSet<>();
-        }
-
         if (genres == null) {
             this.genres = new HashSet<>();
         }
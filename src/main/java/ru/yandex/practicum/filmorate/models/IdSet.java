@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.models;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Компактный набор id (лайки фильма, друзья пользователя) на основе RoaringBitmap.
+ * Является обычным Set&lt;Integer&gt;, поэтому в JSON сериализуется как массив чисел, но хранит id без упаковки
+ * и дает contains, size и пересечение без создания Integer. Не потокобезопасен, как и HashSet.
+ * Удаление через итератор не поддерживается.
+ */
+public class IdSet extends AbstractSet<Integer> {
+    private final RoaringBitmap bitmap;
+
+    public IdSet() {
+        this(new RoaringBitmap());
+    }
+
+    private IdSet(RoaringBitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public static IdSet of(int... ids) {
+        return new IdSet(RoaringBitmap.bitmapOf(ids));
+    }
+
+    /**
+     * Получить IdSet с теми же id
+     *
+     * @param ids
+     * @return возвращает сам ids, если это уже IdSet, иначе новый набор
+     */
+    public static IdSet from(Collection<Integer> ids) {
+        if (ids instanceof IdSet) {
+            return (IdSet) ids;
+        }
+
+        IdSet idSet = new IdSet();
+        ids.forEach(idSet::add);
+
+        return idSet;
+    }
+
+    public boolean contains(int id) {
+        return bitmap.contains(id);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains((int) o);
+    }
+
+    public boolean add(int id) {
+        return bitmap.checkedAdd(id);
+    }
+
+    @Override
+    public boolean add(Integer id) {
+        return add(id.intValue());
+    }
+
+    public boolean remove(int id) {
+        return bitmap.checkedRemove(id);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && remove((int) o);
+    }
+
+    @Override
+    public int size() {
+        return bitmap.getCardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bitmap.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        bitmap.clear();
+    }
+
+    /**
+     * Пересечение наборов
+     *
+     * @param other
+     * @return возвращает новый набор с id, которые есть в обоих наборах
+     */
+    public IdSet intersect(IdSet other) {
+        return new IdSet(RoaringBitmap.and(bitmap, other.bitmap));
+    }
+
+    /**
+     * Добавить все id другого набора
+     */
+    public void or(IdSet other) {
+        bitmap.or(other.bitmap);
+    }
+
+    /**
+     * Размер пересечения наборов, без создания самого пересечения
+     */
+    public int intersectionSize(IdSet other) {
+        return RoaringBitmap.andCardinality(bitmap, other.bitmap);
+    }
+
+    public int[] toIntArray() {
+        return bitmap.toArray();
+    }
+
+    public IdSet copy() {
+        return new IdSet(bitmap.clone());
+    }
+
+    /**
+     * Оценка занимаемой памяти в байтах
+     */
+    public long getSizeInBytes() {
+        return bitmap.getLongSizeInBytes();
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        PeekableIntIterator ids = bitmap.getIntIterator();
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                if (!ids.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return ids.next();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IdSet) {
+            return bitmap.equals(((IdSet) o).bitmap);
+        }
+
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // как у AbstractSet: сумма Integer.hashCode(), то есть самих id
+        int hashCode = 0;
+        PeekableIntIterator ids = bitmap.getIntIterator();
+        while (ids.hasNext()) {
+            hashCode += ids.next();
+        }
+
+        return hashCode;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class Like {
+    private int filmId;
+    private int userId;
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LikeResult {
+    private int filmId;
+    private int userId;
+    private Status status;
+
+    public enum Status {
+        ADDED,
+        ALREADY_EXISTS,
+        FILM_NOT_FOUND,
+        USER_NOT_FOUND
+    }
+
+    public static LikeResult of(Like like, Status status) {
+        return new LikeResult(like.getFilmId(), like.getUserId(), status);
+    }
+}
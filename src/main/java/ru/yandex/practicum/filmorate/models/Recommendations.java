@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.models;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class Recommendations {
+    private List<Film> films;
+    /**
+     * Поиск похожих пользователей остановлен по истечении бюджета времени, рекомендации построены
+     * по просмотренной части
+     */
+    private boolean truncated;
+}
@@ -23,7 +23,7 @@ public class User {
     @EqualsAndHashCode.Exclude
     private LocalDate birthday;
     @EqualsAndHashCode.Exclude
-    private Set<Integer> friendsId;
+    private IdSet friendsId;
 
     @Builder
     public User(int id, String email, String login, String name, LocalDate birthday, Set<Integer> friendsId) {
@@ -32,11 +32,7 @@ public class User {
         this.login = login;
         this.name = name;
         this.birthday = birthday;
-        this.friendsId = friendsId;
-
-        if (this.friendsId == null) {
-            this.friendsId = new HashSet<>();
-        }
+        this.friendsId = friendsId == null ? new IdSet() : IdSet.from(friendsId);
     }
 
     public void addNewFriend(int id) {
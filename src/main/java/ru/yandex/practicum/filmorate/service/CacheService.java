@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.CachedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.CachedUserStorage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class CacheService {
+    private final CachedFilmStorage filmStorage;
+    private final CachedUserStorage userStorage;
+
+    @Autowired
+    public CacheService(CachedFilmStorage filmStorage, CachedUserStorage userStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    public Map<String, Map<String, Number>> getCacheStats() {
+        return Map.of(
+                "films", toMap(filmStorage.getStats(), filmStorage.getEstimatedSize()),
+                "users", toMap(userStorage.getStats(), userStorage.getEstimatedSize())
+        );
+    }
+
+    private static Map<String, Number> toMap(CacheStats stats, long size) {
+        Map<String, Number> result = new LinkedHashMap<>();
+        result.put("size", size);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.models.Genre;
+import ru.yandex.practicum.filmorate.storage.FilmDictionary;
+
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class DictionaryService {
+    private final FilmDictionary dictionary;
+
+    @Autowired
+    public DictionaryService(FilmDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public List<FilmMPA> getAllMpa() {
+        return dictionary.getAllMpa();
+    }
+
+    public FilmMPA findMpaById(int id) {
+        return dictionary.getMpa(id);
+    }
+
+    public List<Genre> getAllGenres() {
+        return dictionary.getAllGenres();
+    }
+
+    public Genre findGenreById(int id) {
+        return dictionary.getGenre(id);
+    }
+
+    public Map<String, Integer> refreshDictionaries() {
+        log.info("Refresh mpa and genre dictionaries");
+        dictionary.refresh();
+
+        return Map.of("mpa", dictionary.getAllMpa().size(), "genres", dictionary.getAllGenres().size());
+    }
+}
@@ -3,13 +3,20 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
 import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
 import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,15 +24,27 @@ import java.util.stream.Collectors;
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final EntityVersions versions;
+    private final int defaultPageLimit;
+    private final int maxPageLimit;
+    private final int likesBatchSize;
 
 
     @Autowired
     public FilmService(
-            @Qualifier("filmDBStorage") FilmStorage filmStorage,
-            @Qualifier("userDBStorage") UserStorage userStorage
+            @Qualifier("cachedFilmStorage") FilmStorage filmStorage,
+            @Qualifier("cachedUserStorage") UserStorage userStorage,
+            EntityVersions versions,
+            @Value("${filmorate.pagination.default-limit}") int defaultPageLimit,
+            @Value("${filmorate.pagination.max-limit}") int maxPageLimit,
+            @Value("${filmorate.likes.batch-size}") int likesBatchSize
     ) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
+        this.versions = versions;
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
+        this.likesBatchSize = likesBatchSize;
     }
 
     public Film addFilm(Film film) {
@@ -35,6 +54,12 @@ public class FilmService {
         return newFilm;
     }
 
+    public List<Film> addFilms(List<Film> films) {
+        log.info("Add batch of {} films", films.size());
+
+        return filmStorage.addAll(films);
+    }
+
     public Film deleteFilm(int id) {
         log.info("Delete film with id:{}", id);
 
@@ -53,18 +78,125 @@ public class FilmService {
         return filmStorage.getAll();
     }
 
+    public List<Film> getFilmsPage(Integer afterId, Integer limit) {
+        if (afterId == null) {
+            afterId = 0;
+        }
+
+        if (limit == null) {
+            limit = defaultPageLimit;
+        }
+
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        log.info("Get {} films after Film.id:{}", limit, afterId);
+
+        return filmStorage.getPage(afterId, limit);
+    }
+
+    /**
+     * Получить страницу фильмов с датой выхода и продолжительностью из диапазонов, границы включаются
+     */
+    public List<Film> getFilmsPageInRange(
+            LocalDate releasedFrom,
+            LocalDate releasedTo,
+            Integer minDuration,
+            Integer maxDuration,
+            Integer afterId,
+            Integer limit
+    ) {
+        if (releasedFrom != null && releasedTo != null && releasedFrom.isAfter(releasedTo)) {
+            throw new IncorrectParameterException("releasedTo");
+        }
+
+        if (minDuration != null && maxDuration != null && minDuration > maxDuration) {
+            throw new IncorrectParameterException("maxDuration");
+        }
+
+        if (afterId == null) {
+            afterId = 0;
+        }
+
+        if (limit == null) {
+            limit = defaultPageLimit;
+        }
+
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        log.info("Get {} films after Film.id:{} released {}..{}, duration {}..{}", limit, afterId, releasedFrom,
+                releasedTo, minDuration, maxDuration);
+
+        return filmStorage.getPageInRange(releasedFrom, releasedTo, minDuration, maxDuration, afterId, limit);
+    }
+
+    /**
+     * Обойти все фильмы постранично, в памяти одновременно держится не больше одной страницы
+     *
+     * @param action действие над каждым фильмом в порядке возрастания id
+     */
+    public void forEachFilm(Consumer<Film> action) {
+        log.info("Stream all films");
+        int afterId = 0;
+        List<Film> page;
+
+        do {
+            page = filmStorage.getPage(afterId, maxPageLimit);
+            page.forEach(action);
+
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == maxPageLimit);
+    }
+
     public Film findFilmById(int id) {
         log.info("Find film with id:{}", id);
 
         return filmStorage.findById(id);
     }
 
+    /**
+     * @return возвращает версию фильма для ETag, не загружая сам фильм
+     */
+    public String getFilmVersion(int id) {
+        return versions.getFilmVersion(id);
+    }
+
     public Film addLikeToFilm(int filmId, int userId) {
         log.info("User.id:{} add like to Film.id:{}", userId, filmId);
 
         return filmStorage.addLikeToFilm(filmId, userId);
     }
 
+    /**
+     * Добавить лайки из потока пачками по filmorate.likes.batch-size, каждая пачка пишется в своей транзакции
+     *
+     * @param likes поток пар (id фильма, id пользователя), читается по мере обработки
+     * @return возвращает статус каждого лайка в порядке потока
+     */
+    public List<LikeResult> addLikes(Iterator<Like> likes) {
+        List<LikeResult> results = new ArrayList<>();
+        List<Like> batch = new ArrayList<>(likesBatchSize);
+
+        while (likes.hasNext()) {
+            batch.add(likes.next());
+
+            if (batch.size() == likesBatchSize) {
+                results.addAll(filmStorage.addLikes(batch));
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            results.addAll(filmStorage.addLikes(batch));
+        }
+        log.info("Add batch of {} likes", results.size());
+
+        return results;
+    }
+
     public Film deleteLikeToFilm(int filmId, int userId) {
         log.info("User.id:{} delete like to Film.id:{}", userId, filmId);
 
@@ -84,4 +216,46 @@ public class FilmService {
         return filmStorage.getPopularFilms(count);
     }
 
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        log.info("Get popular films, genre:{}, year:{}", genreId, year);
+
+        return filmStorage.getPopularFilms(count, genreId, year);
+    }
+
+    public List<Film> searchFilms(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IncorrectParameterException("q");
+        }
+
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        log.info("Search films by '{}'", query);
+
+        return filmStorage.searchFilms(query, limit);
+    }
+
+    public List<Film> autocomplete(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IncorrectParameterException("prefix");
+        }
+
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        log.info("Autocomplete films by '{}'", prefix);
+
+        return filmStorage.autocomplete(prefix, limit);
+    }
+
+    public String getPopularFilmsVersion(int count, Integer genreId, Integer year) {
+        return versions.getPopularFilmsVersion(count, genreId, year);
+    }
+
+    public int reconcileLikeCounts() {
+        log.info("Reconcile film like counters");
+
+        return filmStorage.reconcileLikeCounts();
+    }
+
 }
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Периодически сверяет films.like_count с таблицей likes. Первый запуск сразу после старта, чтобы
+ * заполнить счетчики в базе, созданной до появления колонки
+ */
+@Slf4j
+@Component
+public class LikeCountReconciler {
+    private final FilmService filmService;
+
+    @Autowired
+    public LikeCountReconciler(FilmService filmService) {
+        this.filmService = filmService;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.reconcile-interval-ms}")
+    public void reconcile() {
+        try {
+            filmService.reconcileLikeCounts();
+        } catch (RuntimeException e) {
+            log.error("Like counters reconciliation failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.User;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Чтение фильмов и пользователей в виде Flux (filmorate.reactive.enabled=true). Хранилища блокирующие,
+ * поэтому запросы к ним выполняются на отдельном планировщике не больше чем в filmorate.reactive.max-blocking
+ * потоках: ожидающие клиенты не держат ни потоков Tomcat, ни соединений. Полный список фильмов читается
+ * страницами по запросу подписчика, так что медленный клиент не заставляет загружать следующие страницы
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "filmorate.reactive.enabled", havingValue = "true")
+public class ReactiveReadService {
+    private final FilmService filmService;
+    private final UserService userService;
+    private final int pageSize;
+    private final Scheduler scheduler;
+
+    @Autowired
+    public ReactiveReadService(
+            FilmService filmService,
+            UserService userService,
+            @Value("${filmorate.reactive.page-size}") int pageSize,
+            @Value("${filmorate.reactive.max-blocking}") int maxBlocking
+    ) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.pageSize = pageSize;
+        this.scheduler = Schedulers.newBoundedElastic(maxBlocking, Integer.MAX_VALUE, "reactive-read");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Все фильмы в порядке возрастания id. Следующая страница загружается, только когда подписчик
+     * запросил фильмы сверх уже загруженной страницы
+     */
+    public Flux<Film> getAllFilms() {
+        log.info("Stream all films reactively");
+
+        return Flux.<List<Film>, Integer>generate(() -> 0, (afterId, sink) -> {
+                    List<Film> page = filmService.getFilmsPage(afterId, pageSize);
+
+                    if (!page.isEmpty()) {
+                        sink.next(page);
+                    }
+
+                    if (page.size() < pageSize) {
+                        sink.complete();
+                        return afterId;
+                    }
+
+                    return page.get(page.size() - 1).getId();
+                })
+                .subscribeOn(scheduler)
+                .flatMapIterable(page -> page, 1);
+    }
+
+    public Flux<Film> getPopularFilms(int count) {
+        return fromBlocking(() -> filmService.getPopularFilms(count));
+    }
+
+    public Flux<User> getAllUsersFriendsById(int id, boolean withFriendsIds) {
+        return fromBlocking(() -> userService.getAllUsersFriendsById(id, withFriendsIds));
+    }
+
+    public Flux<User> getCommonFriends(int userId, int friendId, boolean withFriendsIds) {
+        return fromBlocking(() -> userService.getCommonFriends(userId, friendId, withFriendsIds));
+    }
+
+    private <T> Flux<T> fromBlocking(Callable<? extends Iterable<T>> query) {
+        return Flux.defer(() -> {
+            try {
+                return Flux.fromIterable(query.call());
+            } catch (Exception e) {
+                return Flux.error(e);
+            }
+        }).subscribeOn(scheduler);
+    }
+}
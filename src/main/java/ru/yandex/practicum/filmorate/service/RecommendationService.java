@@ -0,0 +1,200 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.models.Recommendations;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.LikesMatrix;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Рекомендации фильмов по лайкам (коллаборативная фильтрация по пользователям). Похожие пользователи —
+ * те, у кого больше всего общих лайков с пользователем; их ищет ForkJoin-задача, которая делит кандидатов
+ * на куски. Фильмы похожих пользователей, которые пользователь еще не лайкнул, ранжируются по сумме общих
+ * лайков этих пользователей. Срок filmorate.recommendations.time-budget проверяется на каждом шаге — при сборе
+ * кандидатов, поиске похожих и ранжировании: по его истечении шаг заканчивается на уже собранном,
+ * а рекомендации помечаются truncated. Фильмы загружаются одним вызовом getByIds.
+ */
+@Slf4j
+@Service
+public class RecommendationService {
+    private static final int CANDIDATES_PER_TASK = 512;
+
+    private final LikesMatrix likesMatrix;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ForkJoinPool pool;
+    private final long timeBudgetNanos;
+    private final int neighbours;
+    private final int maxLimit;
+
+    @Autowired
+    public RecommendationService(
+            LikesMatrix likesMatrix,
+            @Qualifier("cachedFilmStorage") FilmStorage filmStorage,
+            @Qualifier("cachedUserStorage") UserStorage userStorage,
+            @Value("${filmorate.recommendations.parallelism}") int parallelism,
+            @Value("${filmorate.recommendations.time-budget-ms}") long timeBudgetMs,
+            @Value("${filmorate.recommendations.neighbours}") int neighbours,
+            @Value("${filmorate.pagination.max-limit}") int maxLimit
+    ) {
+        this.likesMatrix = likesMatrix;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        this.neighbours = neighbours;
+        this.maxLimit = maxLimit;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public Recommendations getRecommendations(int userId, Integer limit) {
+        if (limit == null || limit < 1 || limit > maxLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        userStorage.findById(userId);
+        log.info("Get {} film recommendations for User.id:{}", limit, userId);
+
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        AtomicBoolean truncated = new AtomicBoolean();
+        IdSet liked = likesMatrix.getFilms(userId);
+        IdSet candidates = new IdSet();
+
+        for (int filmId : liked.toIntArray()) {
+            if (System.nanoTime() > deadline) {
+                truncated.set(true);
+                break;
+            }
+            candidates.or(likesMatrix.getUsers(filmId));
+        }
+        candidates.remove(userId);
+
+        long[] similar = pool.invoke(new SimilarUsersTask(liked, candidates.toIntArray(), 0, candidates.size(),
+                deadline, truncated));
+        int[] filmIds = rankFilms(liked, similar, limit, deadline, truncated);
+
+        if (truncated.get()) {
+            log.warn("Recommendations for User.id:{} truncated after {} ms", userId,
+                    TimeUnit.NANOSECONDS.toMillis(timeBudgetNanos));
+        }
+
+        return Recommendations.builder()
+                .films(filmStorage.getByIds(filmIds))
+                .truncated(truncated.get())
+                .build();
+    }
+
+    /**
+     * Оценка фильма — сумма общих лайков похожих пользователей, которые его лайкнули. Похожие пользователи
+     * идут по убыванию общих лайков, поэтому по истечении бюджета отбрасываются наименее похожие
+     */
+    private int[] rankFilms(IdSet liked, long[] similar, int limit, long deadline, AtomicBoolean truncated) {
+        Map<Integer, Integer> scores = new HashMap<>();
+
+        for (long packed : similar) {
+            if (System.nanoTime() > deadline) {
+                truncated.set(true);
+                break;
+            }
+            int overlap = (int) (packed >>> 32);
+            int similarUserId = Integer.MAX_VALUE - (int) packed;
+
+            for (int filmId : likesMatrix.getFilms(similarUserId).toIntArray()) {
+                if (!liked.contains(filmId)) {
+                    scores.merge(filmId, overlap, Integer::sum);
+                }
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Integer, Integer>comparingByKey()))
+                .limit(limit)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+
+    /**
+     * Лучшие по числу общих лайков пользователи из candidates[from, to). Результат — упакованные long:
+     * в старших 32 битах число общих лайков, в младших — Integer.MAX_VALUE - id, по убыванию
+     */
+    private class SimilarUsersTask extends RecursiveTask<long[]> {
+        private final IdSet liked;
+        private final int[] candidates;
+        private final int from;
+        private final int to;
+        private final long deadline;
+        private final AtomicBoolean truncated;
+
+        private SimilarUsersTask(IdSet liked, int[] candidates, int from, int to, long deadline,
+                                 AtomicBoolean truncated) {
+            this.liked = liked;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+            this.truncated = truncated;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > CANDIDATES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                SimilarUsersTask left = new SimilarUsersTask(liked, candidates, from, middle, deadline, truncated);
+                left.fork();
+                long[] right = new SimilarUsersTask(liked, candidates, middle, to, deadline, truncated).compute();
+
+                return best(concat(left.join(), right));
+            }
+
+            if (System.nanoTime() > deadline) {
+                truncated.set(true);
+                return new long[0];
+            }
+
+            long[] scored = new long[to - from];
+            for (int i = from; i < to; i++) {
+                int overlap = liked.intersectionSize(likesMatrix.getFilms(candidates[i]));
+                scored[i - from] = ((long) overlap << 32) | (Integer.MAX_VALUE - candidates[i]);
+            }
+
+            return best(scored);
+        }
+
+        private long[] best(long[] scored) {
+            Arrays.sort(scored);
+            int size = Math.min(neighbours, scored.length);
+            long[] result = new long[size];
+
+            for (int i = 0; i < size; i++) {
+                result[i] = scored[scored.length - 1 - i];
+            }
+
+            return result;
+        }
+
+        private long[] concat(long[] a, long[] b) {
+            long[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+
+            return result;
+        }
+    }
+}
@@ -3,22 +3,39 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
 import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.FriendshipIndex;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class UserService {
     private final UserStorage storage;
+    private final FriendshipIndex friendshipIndex;
+    private final EntityVersions versions;
+    private final int defaultPageLimit;
+    private final int maxPageLimit;
 
     @Autowired
     public UserService(
-            @Qualifier("userDBStorage") UserStorage storage
+            @Qualifier("cachedUserStorage") UserStorage storage,
+            FriendshipIndex friendshipIndex,
+            EntityVersions versions,
+            @Value("${filmorate.pagination.default-limit}") int defaultPageLimit,
+            @Value("${filmorate.pagination.max-limit}") int maxPageLimit
     ) {
         this.storage = storage;
+        this.friendshipIndex = friendshipIndex;
+        this.versions = versions;
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
     }
 
     public User addUser(User user) {
@@ -27,6 +44,12 @@ public class UserService {
         return storage.add(user);
     }
 
+    public List<User> addUsers(List<User> users) {
+        log.info("Add batch of {} users", users.size());
+
+        return storage.addAll(users);
+    }
+
     public User deleteUser(int id) {
         log.info("Delete user with id:{}", id);
 
@@ -39,10 +62,48 @@ public class UserService {
         return storage.update(user);
     }
 
-    public Collection<User> getAllUsers() {
+    public Collection<User> getAllUsers(boolean withFriendsIds) {
         log.info("Get all users");
 
-        return storage.getAll();
+        return storage.getAll(withFriendsIds);
+    }
+
+    public List<User> getUsersPage(Integer afterId, Integer limit, boolean withFriendsIds) {
+        if (afterId == null) {
+            afterId = 0;
+        }
+
+        if (limit == null) {
+            limit = defaultPageLimit;
+        }
+
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        log.info("Get {} users after User.id:{}", limit, afterId);
+
+        return storage.getPage(afterId, limit, withFriendsIds);
+    }
+
+    /**
+     * Обойти всех пользователей постранично, в памяти одновременно держится не больше одной страницы
+     *
+     * @param withFriendsIds загружать ли friendsId пользователей
+     * @param action         действие над каждым пользователем в порядке возрастания id
+     */
+    public void forEachUser(boolean withFriendsIds, Consumer<User> action) {
+        log.info("Stream all users");
+        int afterId = 0;
+        List<User> page;
+
+        do {
+            page = storage.getPage(afterId, maxPageLimit, withFriendsIds);
+            page.forEach(action);
+
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == maxPageLimit);
     }
 
     public User findUserById(int id) {
@@ -52,10 +113,29 @@ public class UserService {
         return user;
     }
 
-    public List<User> getAllUsersFriendsById(int id) {
+    public User findUserByEmail(String email) {
+        log.info("Find user by email:{}", email);
+
+        return storage.findByEmail(email);
+    }
+
+    public User findUserByLogin(String login) {
+        log.info("Find user by login:{}", login);
+
+        return storage.findByLogin(login);
+    }
+
+    public List<User> getAllUsersFriendsById(int id, boolean withFriendsIds) {
         log.info("Get all users friends by id:{}", id);
 
-        return storage.getAllUsersFriendsById(id);
+        return storage.getAllUsersFriendsById(id, withFriendsIds);
+    }
+
+    /**
+     * @return возвращает версию списка друзей для ETag, не загружая друзей
+     */
+    public String getFriendsVersion(int id) {
+        return versions.getFriendsVersion(id);
     }
 
     public User addNewFriendToTheUser(int userId, int friendId) {
@@ -76,9 +156,37 @@ public class UserService {
         return storage.deleteFriendToTheUser(userId, friendId);
     }
 
-    public Set<User> getCommonFriends(int userId, int friendId) {
+    public Set<User> getCommonFriends(int userId, int friendId, boolean withFriendsIds) {
         log.info("Get common friends User.id:{} and User.id:{}", userId, friendId);
 
-        return storage.getCommonFriends(userId, friendId);
+        return storage.getCommonFriends(userId, friendId, withFriendsIds);
+    }
+
+    public List<User> getFriendSuggestions(int id, Integer limit, boolean withFriendsIds) {
+        if (limit == null || limit < 1 || limit > maxPageLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        log.info("Get {} friend suggestions for User.id:{}", limit, id);
+
+        return storage.getFriendSuggestions(id, limit, withFriendsIds);
+    }
+
+    public List<User> autocomplete(String prefix, int limit, boolean withFriendsIds) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IncorrectParameterException("prefix");
+        }
+
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new IncorrectParameterException("limit");
+        }
+        log.info("Autocomplete users by '{}'", prefix);
+
+        return storage.autocomplete(prefix, limit, withFriendsIds);
+    }
+
+    public int refreshFriendshipIndex() {
+        log.info("Refresh friendship index");
+
+        return friendshipIndex.refresh();
     }
 }
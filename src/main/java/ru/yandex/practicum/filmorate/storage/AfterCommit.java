@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Изменение индекса в памяти после фиксации транзакции: при откате индекс не должен получить запись, которой
+ * нет в базе. Вне транзакции изменение выполняется сразу. Действия выполняются в порядке регистрации,
+ * действие, зарегистрированное из другого такого действия, тоже выполняется сразу.
+ */
+final class AfterCommit {
+    // поток уже выполняет действия после фиксации, новая фиксация не наступит
+    private static final ThreadLocal<Boolean> RUNNING = ThreadLocal.withInitial(() -> false);
+
+    private AfterCommit() {
+    }
+
+    /**
+     * @return возвращает true, если изменение будет отложено до фиксации транзакции
+     */
+    static boolean isDeferred() {
+        return TransactionSynchronizationManager.isSynchronizationActive() && !RUNNING.get();
+    }
+
+    static void run(Runnable action) {
+        if (!isDeferred()) {
+            action.run();
+
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                RUNNING.set(true);
+                try {
+                    action.run();
+                } finally {
+                    RUNNING.set(false);
+                }
+            }
+        });
+    }
+}
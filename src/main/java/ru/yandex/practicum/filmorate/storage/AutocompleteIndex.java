@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+
+/**
+ * Индексы автодополнения для базы: названия фильмов и логины с именами пользователей.
+ * Загружаются при старте, дальше поддерживаются FilmDBStorage и UserDBStorage.
+ * Ранг фильма — количество лайков из PopularityIndex.
+ */
+@Slf4j
+@Component
+public class AutocompleteIndex {
+    private static final String SQL_QUERY_FOR_GET_FILM_NAMES = "SELECT film_id, name FROM films;";
+    private static final String SQL_QUERY_FOR_GET_USER_NAMES = "SELECT user_id, login, name FROM users;";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopularityIndex popularityIndex;
+    private volatile PrefixIndex films = new PrefixIndex();
+    private volatile PrefixIndex users = new PrefixIndex();
+
+    @Autowired
+    public AutocompleteIndex(JdbcTemplate jdbcTemplate, PopularityIndex popularityIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.popularityIndex = popularityIndex;
+        refresh();
+    }
+
+    /**
+     * Перечитать названия фильмов, логины и имена пользователей
+     */
+    public void refresh() {
+        PrefixIndex loadedFilms = new PrefixIndex(popularityIndex::getLikeCount);
+        PrefixIndex loadedUsers = new PrefixIndex();
+
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_FILM_NAMES, (ResultSet rs) -> {
+            loadedFilms.put(rs.getInt("film_id"), rs.getString("name"));
+        });
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_USER_NAMES, (ResultSet rs) -> {
+            loadedUsers.put(rs.getInt("user_id"), rs.getString("login"), rs.getString("name"));
+        });
+
+        films = loadedFilms;
+        users = loadedUsers;
+        log.info("Autocomplete index loaded: {} films, {} users", loadedFilms.size(), loadedUsers.size());
+    }
+
+    public PrefixIndex films() {
+        return films;
+    }
+
+    public PrefixIndex users() {
+        return users;
+    }
+}
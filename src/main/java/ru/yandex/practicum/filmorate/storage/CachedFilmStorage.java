@@ -0,0 +1,198 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш фильмов по id поверх filmDBStorage. Ограничен суммарным весом (примерным размером в байтах) записей,
+ * вытеснение W-TinyLFU. Запись сбрасывается после любого изменения фильма или его лайков, а не обновляется,
+ * чтобы параллельное чтение не положило в кэш устаревшую версию.
+ * Фильмы из кэша общие для всех запросов, изменять их нельзя.
+ */
+@Component("cachedFilmStorage")
+public class CachedFilmStorage implements FilmStorage {
+    private final FilmStorage storage;
+    private final Cache<Integer, Film> cache;
+
+    @Autowired
+    public CachedFilmStorage(
+            @Qualifier("filmDBStorage") FilmStorage storage,
+            @Value("${filmorate.cache.films.max-weight}") long maxWeight
+    ) {
+        this.storage = storage;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Integer id, Film film) -> weigh(film))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Film add(Film film) {
+        return storage.add(film);
+    }
+
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        return storage.addAll(films);
+    }
+
+    @Override
+    public Film deleteById(int id) {
+        try {
+            return storage.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public Film update(Film film) {
+        try {
+            return storage.update(film);
+        } finally {
+            cache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public Collection<Film> getAll() {
+        return storage.getAll();
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        return storage.getPage(afterId, limit);
+    }
+
+    @Override
+    public List<Film> getPageInRange(LocalDate releasedFrom, LocalDate releasedTo, Integer minDuration,
+                                     Integer maxDuration, int afterId, int limit) {
+        return storage.getPageInRange(releasedFrom, releasedTo, minDuration, maxDuration, afterId, limit);
+    }
+
+    @Override
+    public Film findById(int id) {
+        return cache.get(id, storage::findById);
+    }
+
+    /**
+     * Фильмы, которых нет в кэше, загружаются одним вызовом getByIds
+     */
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        Map<Integer, Film> cached = cache.getAll(Arrays.stream(ids).boxed().collect(Collectors.toList()),
+                this::load);
+        List<Film> found = new ArrayList<>(ids.length);
+
+        for (int id : ids) {
+            Film film = cached.get(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+
+        return found;
+    }
+
+    @Override
+    public Film addLikeToFilm(int filmId, int userId) {
+        try {
+            return storage.addLikeToFilm(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public List<LikeResult> addLikes(List<Like> likes) {
+        List<LikeResult> results = storage.addLikes(likes);
+
+        for (LikeResult result : results) {
+            if (result.getStatus() == LikeResult.Status.ADDED) {
+                cache.invalidate(result.getFilmId());
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public Film deleteLikeToFilm(int filmId, int userId) {
+        try {
+            return storage.deleteLikeToFilm(filmId, userId);
+        } finally {
+            cache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public Set<Integer> getAllLikes(int filmId) {
+        return findById(filmId).getLikes().copy();
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        return storage.getPopularFilms(count);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        return storage.getPopularFilms(count, genreId, year);
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        return storage.searchFilms(query, limit);
+    }
+
+    @Override
+    public List<Film> autocomplete(String prefix, int limit) {
+        return storage.autocomplete(prefix, limit);
+    }
+
+    @Override
+    public int reconcileLikeCounts() {
+        return storage.reconcileLikeCounts();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getEstimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private Map<Integer, Film> load(Iterable<? extends Integer> ids) {
+        IdSet missing = new IdSet();
+        ids.forEach(id -> missing.add((int) id));
+
+        return storage.getByIds(missing.toIntArray()).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+    }
+
+    private static int weigh(Film film) {
+        long bytes = 128L
+                + 2L * film.getName().length()
+                + 2L * film.getDescription().length()
+                + film.getLikes().getSizeInBytes()
+                + 32L * film.getGenres().size();
+
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
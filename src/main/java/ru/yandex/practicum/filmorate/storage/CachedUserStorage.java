@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.models.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Кэш пользователей по id поверх userDBStorage, устроен так же, как CachedFilmStorage.
+ * Изменение дружбы сбрасывает обоих пользователей, так как меняется friendsId у каждого из них.
+ */
+@Component("cachedUserStorage")
+public class CachedUserStorage implements UserStorage {
+    private final UserStorage storage;
+    private final Cache<Integer, User> cache;
+
+    @Autowired
+    public CachedUserStorage(
+            @Qualifier("userDBStorage") UserStorage storage,
+            @Value("${filmorate.cache.users.max-weight}") long maxWeight
+    ) {
+        this.storage = storage;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Integer id, User user) -> weigh(user))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public User add(User user) {
+        return storage.add(user);
+    }
+
+    @Override
+    public List<User> addAll(List<User> users) {
+        return storage.addAll(users);
+    }
+
+    @Override
+    public User deleteById(int id) {
+        try {
+            return storage.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public User update(User user) {
+        try {
+            return storage.update(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public Collection<User> getAll() {
+        return storage.getAll();
+    }
+
+    @Override
+    public Collection<User> getAll(boolean withFriendsIds) {
+        return storage.getAll(withFriendsIds);
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        return storage.getPage(afterId, limit);
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit, boolean withFriendsIds) {
+        return storage.getPage(afterId, limit, withFriendsIds);
+    }
+
+    @Override
+    public User findById(int id) {
+        return cache.get(id, storage::findById);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return storage.findByEmail(email);
+    }
+
+    @Override
+    public User findByLogin(String login) {
+        return storage.findByLogin(login);
+    }
+
+    @Override
+    public User addFriend(int userId, int friendId) {
+        try {
+            return storage.addFriend(userId, friendId);
+        } finally {
+            invalidateFriendship(userId, friendId);
+        }
+    }
+
+    @Override
+    public User confirmFriendship(int userId, int requestingUser) {
+        try {
+            return storage.confirmFriendship(userId, requestingUser);
+        } finally {
+            invalidateFriendship(userId, requestingUser);
+        }
+    }
+
+    @Override
+    public User deleteFriendToTheUser(int userId, int friendId) {
+        try {
+            return storage.deleteFriendToTheUser(userId, friendId);
+        } finally {
+            invalidateFriendship(userId, friendId);
+        }
+    }
+
+    @Override
+    public Set<User> getCommonFriends(int userId, int friendId) {
+        return storage.getCommonFriends(userId, friendId);
+    }
+
+    @Override
+    public Set<User> getCommonFriends(int userId, int friendId, boolean withFriendsIds) {
+        return storage.getCommonFriends(userId, friendId, withFriendsIds);
+    }
+
+    @Override
+    public List<User> getAllUsersFriendsById(int id) {
+        return storage.getAllUsersFriendsById(id);
+    }
+
+    @Override
+    public List<User> getAllUsersFriendsById(int id, boolean withFriendsIds) {
+        return storage.getAllUsersFriendsById(id, withFriendsIds);
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(int id, int limit, boolean withFriendsIds) {
+        return storage.getFriendSuggestions(id, limit, withFriendsIds);
+    }
+
+    @Override
+    public List<User> autocomplete(String prefix, int limit, boolean withFriendsIds) {
+        return storage.autocomplete(prefix, limit, withFriendsIds);
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getEstimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Выполнить отложенное обслуживание кэша (вытеснение) сразу
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private void invalidateFriendship(int userId, int friendId) {
+        cache.invalidateAll(List.of(userId, friendId));
+    }
+
+    private static int weigh(User user) {
+        long bytes = 128L
+                + 2L * user.getEmail().length()
+                + 2L * user.getLogin().length()
+                + 2L * user.getName().length()
+                + user.getFriendsId().getSizeInBytes();
+
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
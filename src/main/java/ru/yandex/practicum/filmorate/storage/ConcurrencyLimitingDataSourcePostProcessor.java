@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Оборачивает DataSource в ConcurrencyLimitingDataSource, если задан filmorate.db.max-concurrency больше 0
+ */
+@Component
+public class ConcurrencyLimitingDataSourcePostProcessor implements BeanPostProcessor {
+    private final int maxConcurrency;
+    private final long acquireTimeoutMs;
+
+    public ConcurrencyLimitingDataSourcePostProcessor(
+            @Value("${filmorate.db.max-concurrency}") int maxConcurrency,
+            @Value("${filmorate.db.acquire-timeout-ms}") long acquireTimeoutMs
+    ) {
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (maxConcurrency > 0 && bean instanceof DataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+            return new ConcurrencyLimitingDataSource((DataSource) bean, maxConcurrency, acquireTimeoutMs);
+        }
+
+        return bean;
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.UserNotFoundException;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Версии ответов для условных GET. Колонка version фильма растет при обновлении и каждом изменении лайков,
+ * пользователя — при обновлении и изменении его дружбы. Версия списка собирается из версий входящих в него
+ * строк одним запросом без загрузки самих фильмов или пользователей
+ */
+@Component
+public class EntityVersions {
+    private static final String SQL_QUERY_FOR_GET_FILM_VERSION = "SELECT version FROM films WHERE film_id = ?;";
+    private static final String SQL_QUERY_FOR_GET_POPULAR_FILMS_VERSIONS = "SELECT film_id, version FROM films " +
+            "ORDER BY like_count DESC, film_id LIMIT ?;";
+    private static final String SQL_QUERY_FOR_GET_FILMS_VERSIONS = "SELECT film_id, version FROM films " +
+            "WHERE film_id = ANY(?);";
+    private static final String SQL_QUERY_FOR_GET_USER_VERSION = "SELECT version FROM users WHERE user_id = ?;";
+    private static final String SQL_QUERY_FOR_GET_USERS_VERSIONS = "SELECT COUNT(*) AS users, " +
+            "COALESCE(SUM(version), 0) AS versions FROM users WHERE user_id = ANY(?);";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FriendshipIndex friendshipIndex;
+    private final PopularityIndex popularityIndex;
+
+    @Autowired
+    public EntityVersions(JdbcTemplate jdbcTemplate, FriendshipIndex friendshipIndex, PopularityIndex popularityIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.friendshipIndex = friendshipIndex;
+        this.popularityIndex = popularityIndex;
+    }
+
+    public String getFilmVersion(int filmId) {
+        List<Long> versions = jdbcTemplate.queryForList(SQL_QUERY_FOR_GET_FILM_VERSION, Long.class, filmId);
+
+        if (versions.isEmpty()) {
+            throw new FilmNotFoundException("Film with id:" + filmId + " not found");
+        }
+
+        return filmId + "-" + versions.get(0);
+    }
+
+    /**
+     * Версия топа меняется, если изменился состав или порядок фильмов либо версия любого из них.
+     * Топ с фильтром берется из PopularityIndex, как и сами фильмы в FilmDBStorage
+     */
+    public String getPopularFilmsVersion(int count, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            long[] topHash = {17};
+            jdbcTemplate.query(SQL_QUERY_FOR_GET_POPULAR_FILMS_VERSIONS, (ResultSet rs) -> {
+                topHash[0] = 31 * (31 * topHash[0] + rs.getInt("film_id")) + rs.getLong("version");
+            }, count);
+
+            return count + "-" + Long.toHexString(topHash[0]);
+        }
+        int[] ids = popularityIndex.getTop(count, genreId, year);
+        Map<Integer, Long> versions = new HashMap<>();
+        long hash = 17;
+
+        if (ids.length > 0) {
+            jdbcTemplate.query(SQL_QUERY_FOR_GET_FILMS_VERSIONS, (ResultSet rs) -> {
+                versions.put(rs.getInt("film_id"), rs.getLong("version"));
+            }, (Object) Arrays.stream(ids).boxed().toArray(Integer[]::new));
+        }
+
+        for (int id : ids) {
+            hash = 31 * (31 * hash + id) + versions.getOrDefault(id, -1L);
+        }
+
+        return count + "-" + genreId + "-" + year + "-" + Long.toHexString(hash);
+    }
+
+    /**
+     * Состав друзей меняет версию самого пользователя, изменения друзей — сумму их версий:
+     * версии только растут, поэтому сумма по тому же набору друзей не может повториться
+     */
+    public String getFriendsVersion(int userId) {
+        List<Long> versions = jdbcTemplate.queryForList(SQL_QUERY_FOR_GET_USER_VERSION, Long.class, userId);
+
+        if (versions.isEmpty()) {
+            throw new UserNotFoundException("User with id:" + userId + " not found");
+        }
+        String userVersion = userId + "-" + versions.get(0);
+        int[] friends = friendshipIndex.getFriends(userId);
+
+        if (friends.length == 0) {
+            return userVersion;
+        }
+
+        return jdbcTemplate.queryForObject(SQL_QUERY_FOR_GET_USERS_VERSIONS,
+                (rs, rowNum) -> userVersion + "-" + rs.getInt("users") + "-" + rs.getLong("versions"),
+                (Object) Arrays.stream(friends).boxed().toArray(Integer[]::new));
+    }
+}
@@ -2,59 +2,120 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exceptions.*;
 import ru.yandex.practicum.filmorate.models.Film;
-import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
 import ru.yandex.practicum.filmorate.validators.FilmValidator;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component("filmDBStorage")
 public class FilmDBStorage implements FilmStorage {
-    private static final String SQL_FOR_GET_FILM_GENRES_BY_ID = "SELECT g.genre_id FROM film_genre AS fg " +
-            "JOIN genre AS g ON fg.genre_id = g.genre_id WHERE fg.film_id = ?";
+    private static final String SQL_QUERY_FOR_GET_GENRES_BY_FILM_IDS = "SELECT film_id, genre_id FROM film_genre " +
+            "WHERE film_id = ANY(?);";
+    private static final String SQL_QUERY_FOR_GET_LIKES_BY_FILM_IDS = "SELECT film_id, user_id FROM likes " +
+            "WHERE film_id = ANY(?);";
+    private static final String SQL_QUERY_FOR_ADD = "INSERT INTO films (name, mpa_id, release_date, duration, " +
+            "description) VALUES (?, ?, ?, ?, ?);";
     private static final String SQL_QUERY_FOR_DELETE_BY_ID = "DELETE FROM films WHERE film_id = ?";
     private static final String SQL_QUERY_FOR_UPDATE = "UPDATE films SET name = ?, mpa_id = ?, release_date  = ?, " +
-            "duration = ?, description = ? WHERE film_id = ?;";
+            "duration = ?, description = ?, version = version + 1 WHERE film_id = ?;";
     private static final String SQL_QUERY_FOR_GET_ALL = "SELECT * FROM films;";
+    private static final String SQL_QUERY_FOR_GET_PAGE = "SELECT * FROM films WHERE film_id > ? " +
+            "ORDER BY film_id LIMIT ?;";
+    private static final String SQL_CONDITION_FOR_GET_PAGE_IN_RANGE = "WHERE release_date BETWEEN ? AND ? " +
+            "AND duration BETWEEN ? AND ? AND film_id > ? ORDER BY film_id LIMIT ?;";
+    static final String SQL_QUERY_FOR_GET_PAGE_IN_RANGE = "SELECT * FROM films " +
+            SQL_CONDITION_FOR_GET_PAGE_IN_RANGE;
+    static final String SQL_QUERY_FOR_GET_PAGE_IN_RELEASE_DATE_RANGE = "SELECT * FROM films " +
+            "USE INDEX (idx_films_release_date) " + SQL_CONDITION_FOR_GET_PAGE_IN_RANGE;
+    static final String SQL_QUERY_FOR_GET_PAGE_IN_DURATION_RANGE = "SELECT * FROM films " +
+            "USE INDEX (idx_films_duration) " + SQL_CONDITION_FOR_GET_PAGE_IN_RANGE;
+    private static final String SQL_QUERY_FOR_COUNT = "SELECT COUNT(*) FROM films;";
+    private static final String SQL_QUERY_FOR_COUNT_RELEASE_DATE_RANGE = "SELECT COUNT(*) FROM (SELECT 1 " +
+            "FROM films WHERE release_date BETWEEN ? AND ? LIMIT ?);";
+    private static final String SQL_QUERY_FOR_COUNT_DURATION_RANGE = "SELECT COUNT(*) FROM (SELECT 1 " +
+            "FROM films WHERE duration BETWEEN ? AND ? LIMIT ?);";
     private static final String SQL_QUERY_FOR_FIND_BY_ID = "SELECT * FROM films WHERE film_id = ?;";
     private static final String SQL_QUERY_FOR_ADD_LIKE_TO_FILM = "INSERT INTO likes VALUES (?, ?);";
+    private static final String SQL_QUERY_FOR_ADD_LIKE_IF_ABSENT = "INSERT INTO likes (film_id, user_id) " +
+            "SELECT ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?);";
+    private static final String SQL_QUERY_FOR_GET_EXISTING_FILM_IDS = "SELECT film_id FROM films " +
+            "WHERE film_id = ANY(?);";
+    private static final String SQL_QUERY_FOR_GET_EXISTING_USER_IDS = "SELECT user_id FROM users " +
+            "WHERE user_id = ANY(?);";
     private static final String SQL_QUERY_FOR_DELETE_LIKE_TO_FILM = "DELETE FROM likes WHERE film_id = ? AND " +
             "user_id = ?;";
-    private static final String SQL_QUERY_FOR_GET_POPULAR_FILMS = "SELECT COUNT(l.film_id) AS film_count, f.film_id, " +
-            "f.name, f.mpa_id, f.release_date, f.duration, f.description FROM likes AS l RIGHT JOIN films AS f ON " +
-            "l.film_id = f.film_id GROUP BY f.film_id ORDER BY film_count DESC LIMIT ?;";
-    private static final String SQL_QUERY_FOR_GET_FILM_MPA_BY_ID = "SELECT * FROM mpa WHERE mpa_id = ?;";
-    private static final String SQL_QUERY_FOR_GET_FILM_LIKES_BY_ID = "SELECT user_id FROM likes WHERE film_id = ?;";
+    private static final String SQL_QUERY_FOR_GET_POPULAR_FILMS = "SELECT * FROM films " +
+            "ORDER BY like_count DESC, film_id LIMIT ?;";
+    private static final String SQL_QUERY_FOR_CHANGE_LIKE_COUNT = "UPDATE films SET like_count = like_count + ?, " +
+            "version = version + 1 WHERE film_id = ?;";
+    private static final String SQL_QUERY_FOR_RECONCILE_LIKE_COUNTS = "UPDATE films AS f SET like_count = " +
+            "(SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id), version = version + 1 " +
+            "WHERE like_count <> (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.film_id);";
     private static final String SQL_QUERY_FOR_ADD_FILM_GENRE_BY_ID = "INSERT INTO film_genre (film_id, genre_id) " +
-            "VALUE (?, ?)";
-    private static final String SQL_QUERY_FOR_DELETE_FILM_GENRE_BY_ID = "DELETE FROM film_genre WHERE film_id = ? " +
-            "AND genre_id = ?";
+            "VALUES (?, ?)";
+    private static final String SQL_QUERY_FOR_DELETE_FILM_GENRES = "DELETE FROM film_genre WHERE film_id = ?;";
+    private static final String SQL_QUERY_FOR_GET_BY_IDS = "SELECT * FROM films WHERE film_id = ANY(?);";
+
+    private static final LocalDate EARLIEST_RELEASE_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST_RELEASE_DATE = LocalDate.of(9999, 12, 31);
 
     private final JdbcTemplate jdbcTemplate;
+    private final FilmDictionary dictionary;
+    private final LikesMatrix likesMatrix;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final SimpleJdbcInsert filmInsert;
+    private final int importBatchSize;
 
     @Autowired
-    public FilmDBStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDBStorage(
+            JdbcTemplate jdbcTemplate,
+            FilmDictionary dictionary,
+            LikesMatrix likesMatrix,
+            PopularityIndex popularityIndex,
+            FilmSearchIndex searchIndex,
+            AutocompleteIndex autocompleteIndex,
+            @Value("${filmorate.import.batch-size}") int importBatchSize
+    ) {
         this.jdbcTemplate = jdbcTemplate;
+        this.dictionary = dictionary;
+        this.likesMatrix = likesMatrix;
+        this.popularityIndex = popularityIndex;
+        this.searchIndex = searchIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.importBatchSize = importBatchSize;
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("films")
+                .usingColumns("name", "mpa_id", "release_date", "duration", "description")
+                .usingGeneratedKeyColumns("film_id");
     }
 
 
     @Override
+    @Transactional
     public Film add(Film film) {
         FilmValidator.validate(film);
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("films")
-                .usingGeneratedKeyColumns("film_id");
-
+        film.setMpa(dictionary.getMpa(film.getMpa().getId()));
+        film.getGenres().forEach(dictionary::getGenre);
         Map<String, Object> values = new HashMap<>();
         values.put("name", film.getName());
         values.put("mpa_id", film.getMpa().getId());
@@ -62,29 +123,106 @@ public class FilmDBStorage implements FilmStorage {
         values.put("duration", film.getDuration());
         values.put("description", film.getDescription());
 
-        int film_id = simpleJdbcInsert.executeAndReturnKey(values).intValue();
+        int film_id = filmInsert.executeAndReturnKey(values).intValue();
         film.setId(film_id);
+        saveGenres(List.of(film));
+        popularityIndex.putFilm(film.getId(), film.getReleaseDate().getYear(), film.getGenres());
+        AfterCommit.run(() -> {
+            searchIndex.putFilm(film.getId(), film.getName(), film.getDescription());
+            autocompleteIndex.films().put(film.getId(), film.getName());
+        });
 
         log.info("Add film with id:{} added", film.getId());
 
         return film;
     }
 
+    /**
+     * Все фильмы вставляются одним подготовленным запросом, executeBatch вызывается каждые
+     * filmorate.import.batch-size фильмов
+     */
+    @Override
+    @Transactional
+    public List<Film> addAll(List<Film> films) {
+        FilmValidator.validateAll(films);
+
+        for (Film film : films) {
+            film.setMpa(dictionary.getMpa(film.getMpa().getId()));
+            film.getGenres().forEach(dictionary::getGenre);
+        }
+
+        jdbcTemplate.execute(
+                (PreparedStatementCreator) con -> con.prepareStatement(SQL_QUERY_FOR_ADD, new String[]{"film_id"}),
+                (PreparedStatement ps) -> {
+                    for (int from = 0; from < films.size(); from += importBatchSize) {
+                        List<Film> batch = films.subList(from, Math.min(from + importBatchSize, films.size()));
+
+                        for (Film film : batch) {
+                            ps.setString(1, film.getName());
+                            ps.setInt(2, film.getMpa().getId());
+                            ps.setObject(3, film.getReleaseDate());
+                            ps.setInt(4, film.getDuration());
+                            ps.setString(5, film.getDescription());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+
+                        try (ResultSet keys = ps.getGeneratedKeys()) {
+                            for (Film film : batch) {
+                                keys.next();
+                                film.setId(keys.getInt(1));
+                            }
+                        }
+                    }
+
+                    return null;
+                });
+        saveGenres(films);
+        for (Film film : films) {
+            popularityIndex.putFilm(film.getId(), film.getReleaseDate().getYear(), film.getGenres());
+        }
+        AfterCommit.run(() -> {
+            for (Film film : films) {
+                autocompleteIndex.films().put(film.getId(), film.getName());
+            }
+            searchIndex.putFilms(films);
+        });
+        log.info("{} films added", films.size());
+
+        return films;
+    }
+
     @Override
+    @Transactional
     public Film deleteById(int id) {
+        // фильм читается до удаления, после него читать уже нечего
+        Film film = findById(id);
+        jdbcTemplate.update(SQL_QUERY_FOR_DELETE_FILM_GENRES, id);
         int deleteResult = jdbcTemplate.update(SQL_QUERY_FOR_DELETE_BY_ID, id);
 
         if (deleteResult == 0) {
             throw new FilmNotFoundException("Film with id:" + id + " not found");
         }
+        likesMatrix.removeFilm(id);
+        popularityIndex.removeFilm(id);
+        AfterCommit.run(() -> {
+            searchIndex.removeFilm(id);
+            autocompleteIndex.films().remove(id);
+        });
         log.info("Film with id {} deleted", id);
 
-        return findById(id);
+        return film;
     }
 
+    /**
+     * Жанры фильма заменяются переданными
+     */
     @Override
+    @Transactional
     public Film update(Film film) {
         FilmValidator.validate(film);
+        film.setMpa(dictionary.getMpa(film.getMpa().getId()));
+        film.getGenres().forEach(dictionary::getGenre);
 
         int updatedResul = jdbcTemplate.update(
                 SQL_QUERY_FOR_UPDATE,
@@ -99,6 +237,13 @@ public class FilmDBStorage implements FilmStorage {
         if (updatedResul == 0) {
             throw new FilmNotFoundException("Film with id:" + film.getId() + " not found");
         }
+        jdbcTemplate.update(SQL_QUERY_FOR_DELETE_FILM_GENRES, film.getId());
+        saveGenres(List.of(film));
+        popularityIndex.putFilm(film.getId(), film.getReleaseDate().getYear(), film.getGenres());
+        AfterCommit.run(() -> {
+            searchIndex.putFilm(film.getId(), film.getName(), film.getDescription());
+            autocompleteIndex.films().put(film.getId(), film.getName());
+        });
 
         log.info("Film with id:{} updated", film.getId());
 
@@ -107,25 +252,73 @@ public class FilmDBStorage implements FilmStorage {
 
     @Override
     public Collection<Film> getAll() {
-        return jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL, this::mapRowToFilm);
+        return loadLikesAndGenres(jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL, this::mapRowToFilm));
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        return loadLikesAndGenres(jdbcTemplate.query(SQL_QUERY_FOR_GET_PAGE, this::mapRowToFilm, afterId, limit));
+    }
+
+    /**
+     * Незаданные границы заменяются крайними значениями. Сам H2 всегда выбирает обход по первичному ключу
+     * ради ORDER BY film_id, и для узкого диапазона этот обход проходит почти всю таблицу. Поэтому сначала
+     * считаются фильмы в заданных диапазонах, но не больше RangeIndex.scanThreshold от числа фильмов в таблице:
+     * если самый узкий диапазон меньше порога, запрос идет по его индексу, иначе — по первичному ключу
+     * до заполнения страницы
+     */
+    @Override
+    public List<Film> getPageInRange(LocalDate releasedFrom, LocalDate releasedTo, Integer minDuration,
+                                     Integer maxDuration, int afterId, int limit) {
+        LocalDate fromDate = releasedFrom == null ? EARLIEST_RELEASE_DATE : releasedFrom;
+        LocalDate toDate = releasedTo == null ? LATEST_RELEASE_DATE : releasedTo;
+        int fromDuration = minDuration == null ? Integer.MIN_VALUE : minDuration;
+        int toDuration = maxDuration == null ? Integer.MAX_VALUE : maxDuration;
+        boolean releasedBounded = releasedFrom != null || releasedTo != null;
+        boolean durationBounded = minDuration != null || maxDuration != null;
+        int threshold = releasedBounded || durationBounded
+                ? RangeIndex.scanThreshold(jdbcTemplate.queryForObject(SQL_QUERY_FOR_COUNT, Integer.class), limit)
+                : 0;
+        int releasedCount = releasedBounded
+                ? countUpTo(SQL_QUERY_FOR_COUNT_RELEASE_DATE_RANGE, fromDate, toDate, threshold + 1)
+                : Integer.MAX_VALUE;
+        int durationCount = durationBounded
+                ? countUpTo(SQL_QUERY_FOR_COUNT_DURATION_RANGE, fromDuration, toDuration, threshold + 1)
+                : Integer.MAX_VALUE;
+        String query;
+
+        if (Math.min(releasedCount, durationCount) > threshold) {
+            query = SQL_QUERY_FOR_GET_PAGE_IN_RANGE;
+        } else if (releasedCount <= durationCount) {
+            query = SQL_QUERY_FOR_GET_PAGE_IN_RELEASE_DATE_RANGE;
+        } else {
+            query = SQL_QUERY_FOR_GET_PAGE_IN_DURATION_RANGE;
+        }
+
+        return loadLikesAndGenres(jdbcTemplate.query(query, this::mapRowToFilm,
+                fromDate, toDate, fromDuration, toDuration, afterId, limit));
     }
 
     @Override
     public Film findById(int id) {
-        try {
-            Film film = jdbcTemplate.queryForObject(SQL_QUERY_FOR_FIND_BY_ID, this::mapRowToFilm, id);
-            log.info("Film with id:{} found", id);
+        List<Film> films = jdbcTemplate.query(SQL_QUERY_FOR_FIND_BY_ID, this::mapRowToFilm, id);
 
-            return film;
-        } catch (IncorrectResultSizeDataAccessException e) {
+        if (films.isEmpty()) {
             throw new FilmNotFoundException("Film with id:" + id + " not found");
         }
+        log.info("Film with id:{} found", id);
+
+        return loadLikesAndGenres(films).get(0);
     }
 
     @Override
+    @Transactional
     public Film addLikeToFilm(int filmId, int userId) {
         try {
             jdbcTemplate.update(SQL_QUERY_FOR_ADD_LIKE_TO_FILM, filmId, userId);
+            jdbcTemplate.update(SQL_QUERY_FOR_CHANGE_LIKE_COUNT, 1, filmId);
+            likesMatrix.addLike(filmId, userId);
+            changeLikes(filmId, 1);
             return findById(filmId);
         } catch (DataIntegrityViolationException e) {
             String errorMessage = e.getMostSpecificCause().getMessage();
@@ -144,13 +337,92 @@ public class FilmDBStorage implements FilmStorage {
 
     }
 
+    /**
+     * Существование фильмов и пользователей проверяется двумя запросами на всю пачку, лайки вставляются одним
+     * batchUpdate с условием NOT EXISTS, счетчики лайков обновляются одним batchUpdate по фильмам
+     */
+    @Override
+    @Transactional
+    public List<LikeResult> addLikes(List<Like> likes) {
+        List<LikeResult> results = new ArrayList<>(likes.size());
+
+        if (likes.isEmpty()) {
+            return results;
+        }
+
+        IdSet filmIds = getExistingIds(SQL_QUERY_FOR_GET_EXISTING_FILM_IDS,
+                likes.stream().mapToInt(Like::getFilmId).distinct().boxed().toArray(Integer[]::new));
+        IdSet userIds = getExistingIds(SQL_QUERY_FOR_GET_EXISTING_USER_IDS,
+                likes.stream().mapToInt(Like::getUserId).distinct().boxed().toArray(Integer[]::new));
+        List<Like> toInsert = new ArrayList<>(likes.size());
+
+        for (Like like : likes) {
+            if (!filmIds.contains(like.getFilmId())) {
+                results.add(LikeResult.of(like, LikeResult.Status.FILM_NOT_FOUND));
+            } else if (!userIds.contains(like.getUserId())) {
+                results.add(LikeResult.of(like, LikeResult.Status.USER_NOT_FOUND));
+            } else {
+                results.add(null);
+                toInsert.add(like);
+            }
+        }
+
+        int[] inserted = jdbcTemplate.batchUpdate(SQL_QUERY_FOR_ADD_LIKE_IF_ABSENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Like like = toInsert.get(i);
+                ps.setInt(1, like.getFilmId());
+                ps.setInt(2, like.getUserId());
+                ps.setInt(3, like.getFilmId());
+                ps.setInt(4, like.getUserId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return toInsert.size();
+            }
+        });
+        Map<Integer, Integer> likeCountDeltas = new HashMap<>();
+        List<Like> added = new ArrayList<>(toInsert.size());
+        int next = 0;
+
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            Like like = toInsert.get(next);
+
+            if (inserted[next++] > 0) {
+                results.set(i, LikeResult.of(like, LikeResult.Status.ADDED));
+                likeCountDeltas.merge(like.getFilmId(), 1, Integer::sum);
+                added.add(like);
+            } else {
+                results.set(i, LikeResult.of(like, LikeResult.Status.ALREADY_EXISTS));
+            }
+        }
+
+        jdbcTemplate.batchUpdate(SQL_QUERY_FOR_CHANGE_LIKE_COUNT, likeCountDeltas.entrySet().stream()
+                .map(delta -> new Object[]{delta.getValue(), delta.getKey()})
+                .collect(Collectors.toList()));
+        likesMatrix.addLikes(added);
+        likeCountDeltas.forEach(this::changeLikes);
+        log.info("Batch of {} likes processed, {} added", likes.size(), likeCountDeltas.values().stream()
+                .mapToInt(Integer::intValue).sum());
+
+        return results;
+    }
+
     @Override
+    @Transactional
     public Film deleteLikeToFilm(int filmId, int userId) {
         int queryResult = jdbcTemplate.update(SQL_QUERY_FOR_DELETE_LIKE_TO_FILM, filmId, userId);
 
         if (queryResult == 0) {
             throw new LikeNotFoundException("Like by film:id=" + filmId + " from user:id=" + userId + " not found");
         }
+        jdbcTemplate.update(SQL_QUERY_FOR_CHANGE_LIKE_COUNT, -1, filmId);
+        likesMatrix.removeLike(filmId, userId);
+        changeLikes(filmId, -1);
 
         log.info("Like by film:id={} from user:id={} deleted", filmId, userId);
         return findById(filmId);
@@ -163,61 +435,161 @@ public class FilmDBStorage implements FilmStorage {
 
     @Override
     public List<Film> getPopularFilms(int count) {
-        return jdbcTemplate.query(SQL_QUERY_FOR_GET_POPULAR_FILMS, this::mapRowToFilm, count);
+        return loadLikesAndGenres(jdbcTemplate.query(SQL_QUERY_FOR_GET_POPULAR_FILMS, this::mapRowToFilm, count));
+    }
+
+    /**
+     * С фильтром id топа берутся из PopularityIndex, фильмы загружаются одним запросом
+     */
+    @Override
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return getPopularFilms(count);
+        }
+
+        if (genreId != null) {
+            dictionary.getGenre(genreId);
+        }
+        int[] ids = popularityIndex.getTop(count, genreId, year);
+
+        return getByIds(ids);
+    }
+
+    /**
+     * id найденных фильмов берутся из FilmSearchIndex, фильмы загружаются одним запросом
+     */
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        return getByIds(searchIndex.search(query, limit));
+    }
+
+    /**
+     * id берутся из AutocompleteIndex, ранг — количество лайков из PopularityIndex
+     */
+    @Override
+    public List<Film> autocomplete(String prefix, int limit) {
+        return getByIds(autocompleteIndex.films().complete(prefix, limit));
     }
 
+    @Override
+    public int reconcileLikeCounts() {
+        int fixed = jdbcTemplate.update(SQL_QUERY_FOR_RECONCILE_LIKE_COUNTS);
+        likesMatrix.refresh();
+        popularityIndex.refresh();
+        autocompleteIndex.films().ranksChanged();
+
+        if (fixed > 0) {
+            log.warn("Like counters of {} films differed from likes table and were fixed", fixed);
+        }
+
+        return fixed;
+    }
+
+    /**
+     * Учесть изменение количества лайков фильма в рейтингах и автодополнении. Ранг автодополнения читается
+     * из PopularityIndex, поэтому пересчитывается после изменения счетчика
+     */
+    private void changeLikes(int filmId, int delta) {
+        popularityIndex.changeLikes(filmId, delta);
+        AfterCommit.run(() -> autocompleteIndex.films().rankChanged(filmId));
+    }
+
+    /**
+     * Посчитать фильмы со значением из диапазона, но не больше max, по индексу этого значения
+     */
+    private int countUpTo(String sql, Object from, Object to, int max) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, from, to, max);
+
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Фильмы загружаются одним запросом
+     */
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Film> filmsById = new HashMap<>();
+        loadLikesAndGenres(jdbcTemplate.query(SQL_QUERY_FOR_GET_BY_IDS, this::mapRowToFilm,
+                (Object) Arrays.stream(ids).boxed().toArray(Integer[]::new)))
+                .forEach(film -> filmsById.put(film.getId(), film));
+        List<Film> found = new ArrayList<>(ids.length);
+
+        for (int id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * MPA берется из справочника, лайки и жанры догружаются в loadLikesAndGenres
+     */
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
-        int filmId = rs.getInt("film_id");
         return Film.builder()
-                .id(filmId)
+                .id(rs.getInt("film_id"))
                 .name(rs.getString("name"))
                 .description(rs.getString("description"))
                 .releaseDate(LocalDate.parse(rs.getString("release_date")))
-                .mpa(getFilmMPAById(rs.getInt("mpa_id")))
+                .mpa(dictionary.getMpa(rs.getInt("mpa_id")))
                 .duration(rs.getInt("duration"))
-                .likes(getFilmLikesById(filmId))
-                .genre(getFilmGenresById(filmId))
                 .build();
     }
 
-    private FilmMPA getFilmMPAById(int id) {
-        return jdbcTemplate.queryForObject(SQL_QUERY_FOR_GET_FILM_MPA_BY_ID, this::mapRowToFilmMPA, id);
-    }
-
-    private FilmMPA mapRowToFilmMPA(ResultSet rs, int rowNum) throws SQLException {
-        return FilmMPA.builder()
-                .id(rs.getInt("mpa_id"))
-                .name(rs.getString("mpa_name"))
-                .build();
-    }
+    /**
+     * Загрузить лайки и жанры сразу для всех переданных фильмов: по одному запросу на лайки и на жанры,
+     * независимо от количества фильмов
+     *
+     * @param films фильмы без лайков и жанров
+     * @return те же фильмы с заполненными лайками и жанрами
+     */
+    private List<Film> loadLikesAndGenres(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
 
-    private Set<Integer> getFilmGenresById(int id) {
-        List<Integer> queryResult = jdbcTemplate.query(
-                SQL_FOR_GET_FILM_GENRES_BY_ID,
-                (ResultSet rs, int rowNum) -> rs.getInt("genre_id"),
-                id);
+        Integer[] filmIds = films.stream().map(Film::getId).toArray(Integer[]::new);
+        Map<Integer, IdSet> likes = new HashMap<>();
+        Map<Integer, Set<Integer>> genres = new HashMap<>();
 
-        return Set.copyOf(queryResult);
-    }
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_LIKES_BY_FILM_IDS, (ResultSet rs) -> {
+            likes.computeIfAbsent(rs.getInt("film_id"), id -> new IdSet()).add(rs.getInt("user_id"));
+        }, (Object) filmIds);
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_GENRES_BY_FILM_IDS, (ResultSet rs) -> {
+            genres.computeIfAbsent(rs.getInt("film_id"), id -> new HashSet<>()).add(rs.getInt("genre_id"));
+        }, (Object) filmIds);
 
-    private Set<Integer> addFilmGenreById(int filmId, int genreId) {
-        int queryResult = jdbcTemplate.update(SQL_QUERY_FOR_ADD_FILM_GENRE_BY_ID, filmId, genreId);
+        for (Film film : films) {
+            film.setLikes(likes.getOrDefault(film.getId(), new IdSet()));
+            film.setGenres(genres.getOrDefault(film.getId(), new HashSet<>()));
+        }
 
-        return getFilmGenresById(filmId);
+        return films;
     }
 
-    private Set<Integer> deleteFilmGenreById(int filmId, int genreId) {
-        int queryResult = jdbcTemplate.update(SQL_QUERY_FOR_DELETE_FILM_GENRE_BY_ID, filmId, genreId);
+    private void saveGenres(List<Film> films) {
+        List<Object[]> rows = new ArrayList<>();
 
-        return getFilmGenresById(filmId);
+        for (Film film : films) {
+            film.getGenres().forEach(genreId -> rows.add(new Object[]{film.getId(), genreId}));
+        }
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_QUERY_FOR_ADD_FILM_GENRE_BY_ID, rows);
+        }
     }
 
-    private Set<Integer> getFilmLikesById(int id) {
-        List<Integer> queryResult = jdbcTemplate.query(
-                SQL_QUERY_FOR_GET_FILM_LIKES_BY_ID,
-                (ResultSet rs, int rowNum) -> rs.getInt("user_id"),
-                id);
+    private IdSet getExistingIds(String sql, Integer[] ids) {
+        IdSet existing = new IdSet();
+        jdbcTemplate.query(sql, (ResultSet rs) -> {
+            existing.add(rs.getInt(1));
+        }, (Object) ids);
 
-        return Set.copyOf(queryResult);
+        return existing;
     }
 }
@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.MpaNotFoundException;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.models.Genre;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Справочники MPA и жанров. Таблицы mpa и genre загружаются один раз при старте в массивы, индексированные id,
+ * и перечитываются только по явному вызову refresh(). Экземпляры FilmMPA и Genre общие для всех фильмов,
+ * изменять их нельзя.
+ */
+@Slf4j
+@Component
+public class FilmDictionary {
+    private static final String SQL_QUERY_FOR_GET_ALL_MPA = "SELECT mpa_id, mpa_name FROM mpa;";
+    private static final String SQL_QUERY_FOR_GET_ALL_GENRES = "SELECT genre_id, name FROM genre;";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public FilmDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        refresh();
+    }
+
+    /**
+     * Перечитать справочники из базы. Читатели видят либо старую, либо новую версию целиком
+     */
+    public void refresh() {
+        List<FilmMPA> mpa = jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_MPA, (ResultSet rs, int rowNum) ->
+                FilmMPA.builder().id(rs.getInt("mpa_id")).name(rs.getString("mpa_name")).build());
+        List<Genre> genres = jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_GENRES, (ResultSet rs, int rowNum) ->
+                Genre.builder().id(rs.getInt("genre_id")).name(rs.getString("name")).build());
+
+        FilmMPA[] mpaById = new FilmMPA[mpa.stream().mapToInt(FilmMPA::getId).max().orElse(0) + 1];
+        mpa.forEach(m -> mpaById[m.getId()] = m);
+        Genre[] genresById = new Genre[genres.stream().mapToInt(Genre::getId).max().orElse(0) + 1];
+        genres.forEach(g -> genresById[g.getId()] = g);
+
+        snapshot = new Snapshot(mpaById, genresById);
+        log.info("Dictionaries loaded: {} mpa, {} genres", mpa.size(), genres.size());
+    }
+
+    /**
+     * Получить MPA по id
+     *
+     * @param id
+     * @return возвращает общий экземпляр FilmMPA
+     * @throws MpaNotFoundException если MPA с переданным id нет в справочнике
+     */
+    public FilmMPA getMpa(int id) throws MpaNotFoundException {
+        FilmMPA[] mpaById = snapshot.mpaById;
+        if (id < 0 || id >= mpaById.length || mpaById[id] == null) {
+            throw new MpaNotFoundException("Mpa with id:" + id + " not found");
+        }
+
+        return mpaById[id];
+    }
+
+    public List<FilmMPA> getAllMpa() {
+        return snapshot.allMpa;
+    }
+
+    /**
+     * Получить жанр по id
+     *
+     * @param id
+     * @return возвращает общий экземпляр Genre
+     * @throws GenreNotFoundException если жанра с переданным id нет в справочнике
+     */
+    public Genre getGenre(int id) throws GenreNotFoundException {
+        Genre[] genresById = snapshot.genresById;
+        if (id < 0 || id >= genresById.length || genresById[id] == null) {
+            throw new GenreNotFoundException("Genre with id:" + id + " not found");
+        }
+
+        return genresById[id];
+    }
+
+    public List<Genre> getAllGenres() {
+        return snapshot.allGenres;
+    }
+
+    private static class Snapshot {
+        private final FilmMPA[] mpaById;
+        private final Genre[] genresById;
+        private final List<FilmMPA> allMpa;
+        private final List<Genre> allGenres;
+
+        private Snapshot(FilmMPA[] mpaById, Genre[] genresById) {
+            this.mpaById = mpaById;
+            this.genresById = genresById;
+            this.allMpa = Arrays.stream(mpaById).filter(Objects::nonNull).collect(Collectors.toUnmodifiableList());
+            this.allGenres = Arrays.stream(genresById).filter(Objects::nonNull)
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    }
+}
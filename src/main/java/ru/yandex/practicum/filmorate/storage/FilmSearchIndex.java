@@ -0,0 +1,371 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.IdSet;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Полнотекстовый поиск по названию и описанию фильмов: обратный индекс терм → фильмы, где списки фильмов
+ * хранятся в IdSet (сжатые битовые карты). Текст приводится к нижнему регистру, ё заменяется на е,
+ * у русских слов отбрасывается окончание, поэтому «фильмы», «фильмов» и «фильм» дают один терм.
+ * Релевантность — сумма idf найденных термов, совпадение в названии весит вдвое больше, чем в описании.
+ * Загружается при старте, дальше поддерживается FilmDBStorage. Списки фильмов не изменяются после
+ * публикации, запись заменяет их копией, поэтому поиск идет без блокировок. Пачка фильмов собирается
+ * в копии снимка, где список каждого терма копируется один раз, и публикуется заменой снимка: загрузка
+ * n фильмов пачкой занимает O(n), а не O(n²), и поиск видит либо всю пачку, либо ничего из нее.
+ * Изменения идут под writeLock, чтобы одиночная запись не потерялась при замене снимка.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private static final String SQL_QUERY_FOR_GET_ALL_TEXTS = "SELECT film_id, name, description FROM films;";
+    private static final String[] RUSSIAN_ENDINGS = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ах", "ях", "ов", "ев", "ей", "ой", "ий",
+            "ый", "ая", "яя", "ое", "ее", "ые", "ие", "ом", "ем", "ам", "ям", "ую", "юю", "а", "я", "о", "е", "ы",
+            "и", "у", "ю", "ь", "й"
+    };
+    private static final int MIN_STEM_LENGTH = 3;
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot();
+
+    @Autowired
+    public FilmSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        refresh();
+    }
+
+    /**
+     * Пустой индекс без базы, для хранилища в памяти и бенчмарков
+     */
+    public FilmSearchIndex() {
+        this.jdbcTemplate = null;
+    }
+
+    /**
+     * Перечитать названия и описания всех фильмов
+     *
+     * @return возвращает количество фильмов
+     */
+    public int refresh() {
+        Snapshot loaded = new Snapshot();
+        // до публикации списки дополняются на месте, без копий
+        Map<String, IdSet[]> lists = new HashMap<>();
+
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_TEXTS, (ResultSet rs) -> {
+            int filmId = rs.getInt("film_id");
+            Document document = Document.of(rs.getString("name"), rs.getString("description"));
+            loaded.documents.put(filmId, document);
+
+            for (String term : document.nameTerms) {
+                lists.computeIfAbsent(term, key -> new IdSet[]{new IdSet(), new IdSet()})[0].add(filmId);
+            }
+
+            for (String term : document.descriptionTerms) {
+                lists.computeIfAbsent(term, key -> new IdSet[]{new IdSet(), new IdSet()})[1].add(filmId);
+            }
+        });
+        lists.forEach((term, ids) -> loaded.postings.put(term, new Postings(ids[0], ids[1])));
+
+        synchronized (writeLock) {
+            snapshot = loaded;
+        }
+        log.info("Search index loaded: {} films, {} terms", loaded.documents.size(), loaded.postings.size());
+
+        return loaded.documents.size();
+    }
+
+    /**
+     * Найти фильмы
+     *
+     * @param query строка поиска
+     * @param limit максимальное количество фильмов
+     * @return возвращает id фильмов по убыванию релевантности, при равенстве — по возрастанию id
+     */
+    public int[] search(String query, int limit) {
+        Snapshot current = snapshot;
+        int total = Math.max(1, current.documents.size());
+        Map<Integer, Double> scores = new HashMap<>();
+
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings postings = current.postings.get(term);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (double) total / postings.size());
+
+            for (int filmId : postings.name.toIntArray()) {
+                scores.merge(filmId, idf * NAME_WEIGHT, Double::sum);
+            }
+
+            for (int filmId : postings.description.toIntArray()) {
+                scores.merge(filmId, idf * DESCRIPTION_WEIGHT, Double::sum);
+            }
+        }
+
+        Comparator<Map.Entry<Integer, Double>> byRelevance = Map.Entry.<Integer, Double>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.<Integer, Double>comparingByKey());
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(byRelevance.reversed());
+
+        for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+            top.add(score);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        int[] result = new int[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll().getKey();
+        }
+
+        return result;
+    }
+
+    /**
+     * Учесть новый или обновленный фильм
+     */
+    public void putFilm(int filmId, String name, String description) {
+        synchronized (writeLock) {
+            snapshot.put(filmId, name, description);
+        }
+    }
+
+    /**
+     * Учесть пачку новых или обновленных фильмов
+     */
+    public void putFilms(Collection<Film> films) {
+        synchronized (writeLock) {
+            snapshot = snapshot.withAll(films);
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        synchronized (writeLock) {
+            snapshot.remove(filmId);
+        }
+    }
+
+    public int getTermCount() {
+        return snapshot.postings.size();
+    }
+
+    /**
+     * @return возвращает суммарный размер списков фильмов в байтах
+     */
+    public long getPostingsSizeInBytes() {
+        return snapshot.postings.values().stream()
+                .mapToLong(postings -> postings.name.getSizeInBytes() + postings.description.getSizeInBytes())
+                .sum();
+    }
+
+    /**
+     * Разбить текст на термы: буквы и цифры, нижний регистр, ё → е, без окончаний у русских слов
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+
+        if (text == null) {
+            return terms;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                terms.add(stem(normalized.substring(start, i)));
+                start = -1;
+            }
+        }
+
+        return terms;
+    }
+
+    private static String stem(String word) {
+        if (!isCyrillic(word)) {
+            return word;
+        }
+
+        for (String ending : RUSSIAN_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+
+        return word;
+    }
+
+    private static boolean isCyrillic(String word) {
+        return Character.UnicodeBlock.of(word.charAt(0)) == Character.UnicodeBlock.CYRILLIC;
+    }
+
+    /**
+     * Фильмы терма: с термом в названии и с термом в описании
+     */
+    private static class Postings {
+        private static final Postings EMPTY = new Postings(new IdSet(), new IdSet());
+
+        private final IdSet name;
+        private final IdSet description;
+        // количество фильмов с термом в названии или описании
+        private final int size;
+
+        private Postings(IdSet name, IdSet description) {
+            this.name = name;
+            this.description = description;
+            this.size = name.size() + description.size() - name.intersectionSize(description);
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private Postings with(int filmId, boolean inName, boolean inDescription) {
+            return new Postings(inName ? withId(name, filmId) : name,
+                    inDescription ? withId(description, filmId) : description);
+        }
+
+        private Postings withAll(IdSet addedToName, IdSet addedToDescription) {
+            return new Postings(addedToName.isEmpty() ? name : union(name, addedToName),
+                    addedToDescription.isEmpty() ? description : union(description, addedToDescription));
+        }
+
+        private Postings without(int filmId) {
+            IdSet nameCopy = name.copy();
+            IdSet descriptionCopy = description.copy();
+            nameCopy.remove(filmId);
+            descriptionCopy.remove(filmId);
+
+            return nameCopy.isEmpty() && descriptionCopy.isEmpty() ? null : new Postings(nameCopy, descriptionCopy);
+        }
+
+        private static IdSet withId(IdSet ids, int id) {
+            IdSet copy = ids.copy();
+            copy.add(id);
+
+            return copy;
+        }
+
+        private static IdSet union(IdSet ids, IdSet added) {
+            IdSet copy = ids.copy();
+            copy.or(added);
+
+            return copy;
+        }
+    }
+
+    /**
+     * Термы фильма, чтобы при обновлении и удалении убрать его из списков
+     */
+    private static class Document {
+        private final Set<String> nameTerms;
+        private final Set<String> descriptionTerms;
+
+        private Document(Set<String> nameTerms, Set<String> descriptionTerms) {
+            this.nameTerms = nameTerms;
+            this.descriptionTerms = descriptionTerms;
+        }
+
+        private static Document of(String name, String description) {
+            return new Document(new HashSet<>(tokenize(name)), new HashSet<>(tokenize(description)));
+        }
+    }
+
+    private static class Snapshot {
+        private final ConcurrentHashMap<Integer, Document> documents = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Postings> postings = new ConcurrentHashMap<>();
+
+        private void put(int filmId, String name, String description) {
+            Document document = Document.of(name, description);
+
+            documents.compute(filmId, (id, previous) -> {
+                if (previous != null) {
+                    removePostings(filmId, previous);
+                }
+                Set<String> terms = new HashSet<>(document.nameTerms);
+                terms.addAll(document.descriptionTerms);
+
+                for (String term : terms) {
+                    postings.compute(term, (key, current) -> (current == null ? Postings.EMPTY : current)
+                            .with(filmId, document.nameTerms.contains(term), document.descriptionTerms.contains(term)));
+                }
+
+                return document;
+            });
+        }
+
+        /**
+         * Копия снимка с фильмами пачки. Списки не изменяются, поэтому копия разделяет их с текущим снимком
+         */
+        private Snapshot withAll(Collection<Film> films) {
+            Snapshot updated = new Snapshot();
+            updated.documents.putAll(documents);
+            updated.postings.putAll(postings);
+            updated.putAll(films);
+
+            return updated;
+        }
+
+        /**
+         * Фильмы пачки собираются в списки по термам, и каждый список заменяется одной копией
+         */
+        private void putAll(Collection<Film> films) {
+            Map<String, IdSet[]> added = new HashMap<>();
+
+            for (Film film : films) {
+                Document document = Document.of(film.getName(), film.getDescription());
+
+                documents.compute(film.getId(), (id, previous) -> {
+                    if (previous != null) {
+                        removePostings(film.getId(), previous);
+                    }
+
+                    return document;
+                });
+
+                for (String term : document.nameTerms) {
+                    added.computeIfAbsent(term, key -> new IdSet[]{new IdSet(), new IdSet()})[0].add(film.getId());
+                }
+
+                for (String term : document.descriptionTerms) {
+                    added.computeIfAbsent(term, key -> new IdSet[]{new IdSet(), new IdSet()})[1].add(film.getId());
+                }
+            }
+
+            added.forEach((term, ids) -> postings.compute(term, (key, current) ->
+                    (current == null ? Postings.EMPTY : current).withAll(ids[0], ids[1])));
+        }
+
+        private void remove(int filmId) {
+            documents.computeIfPresent(filmId, (id, document) -> {
+                removePostings(filmId, document);
+
+                return null;
+            });
+        }
+
+        private void removePostings(int filmId, Document document) {
+            Set<String> terms = new HashSet<>(document.nameTerms);
+            terms.addAll(document.descriptionTerms);
+
+            for (String term : terms) {
+                postings.computeIfPresent(term, (key, current) -> current.without(filmId));
+            }
+        }
+    }
+}
@@ -5,7 +5,10 @@ import ru.yandex.practicum.filmorate.exceptions.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -21,6 +24,15 @@ public interface FilmStorage {
      */
     Film add(Film film) throws FilmAlreadyExistException, ValidationException;
 
+    /**
+     * Добавить пачку фильмов одной транзакцией
+     *
+     * @param films
+     * @return возвращает добавленные фильмы с присвоенными id в порядке переданного списка
+     * @throws ValidationException если хотя бы один фильм не проходит валидацию, ничего не добавляется
+     */
+    List<Film> addAll(List<Film> films) throws ValidationException;
+
     /**
      * Удалить по id
      *
@@ -47,6 +59,29 @@ public interface FilmStorage {
      */
     Collection<Film> getAll();
 
+    /**
+     * Получить страницу фильмов, отсортированных по id
+     *
+     * @param afterId id последнего фильма предыдущей страницы, 0 для первой страницы
+     * @param limit   максимальное количество фильмов на странице
+     * @return возвращает не больше limit фильмов с id больше afterId
+     */
+    List<Film> getPage(int afterId, int limit);
+
+    /**
+     * Получить страницу фильмов с датой выхода и продолжительностью из диапазонов, отсортированных по id
+     *
+     * @param releasedFrom самая ранняя дата выхода включительно или null
+     * @param releasedTo   самая поздняя дата выхода включительно или null
+     * @param minDuration  минимальная продолжительность включительно или null
+     * @param maxDuration  максимальная продолжительность включительно или null
+     * @param afterId      id последнего фильма предыдущей страницы, 0 для первой страницы
+     * @param limit        максимальное количество фильмов на странице
+     * @return возвращает не больше limit фильмов с id больше afterId
+     */
+    List<Film> getPageInRange(LocalDate releasedFrom, LocalDate releasedTo, Integer minDuration,
+                              Integer maxDuration, int afterId, int limit);
+
     /**
      * Найти по id
      *
@@ -56,6 +91,14 @@ public interface FilmStorage {
      */
     Film findById(int id) throws FilmNotFoundException;
 
+    /**
+     * Найти фильмы по id одним обращением к хранилищу
+     *
+     * @param ids id фильмов
+     * @return возвращает фильмы в порядке переданных id, отсутствующие id пропускаются
+     */
+    List<Film> getByIds(int[] ids);
+
     /**
      * Добавить лайк фильму
      *
@@ -66,6 +109,15 @@ public interface FilmStorage {
      */
     Film addLikeToFilm(int filmId, int userId) throws FilmNotFoundException;
 
+    /**
+     * Добавить пачку лайков. Уже существующие лайки и лайки несуществующим фильмам или от несуществующих
+     * пользователей пропускаются, исключения не выбрасываются
+     *
+     * @param likes пары (id фильма, id пользователя)
+     * @return возвращает статус каждого лайка в порядке переданного списка
+     */
+    List<LikeResult> addLikes(List<Like> likes);
+
     /**
      * Удалить лайк у фильма
      *
@@ -93,4 +145,39 @@ public interface FilmStorage {
      * @return возвращает отсортированный по количеству лайков список фильмов
      */
     List<Film> getPopularFilms(int count);
+
+    /**
+     * Получить популярные фильмы жанра и/или года
+     *
+     * @param count   количество фильмов
+     * @param genreId id жанра или null для любого жанра
+     * @param year    год выхода или null для любого года
+     * @return возвращает отсортированный по количеству лайков список фильмов
+     */
+    List<Film> getPopularFilms(int count, Integer genreId, Integer year);
+
+    /**
+     * Найти фильмы по названию и описанию
+     *
+     * @param query строка поиска
+     * @param limit максимальное количество фильмов
+     * @return возвращает фильмы по убыванию релевантности
+     */
+    List<Film> searchFilms(String query, int limit);
+
+    /**
+     * Подсказать фильмы по началу названия
+     *
+     * @param prefix начало названия
+     * @param limit  максимальное количество фильмов
+     * @return возвращает фильмы по убыванию количества лайков
+     */
+    List<Film> autocomplete(String prefix, int limit);
+
+    /**
+     * Сверить счетчики лайков фильмов с фактическими лайками и исправить расхождения
+     *
+     * @return возвращает количество фильмов, у которых счетчик был исправлен
+     */
+    int reconcileLikeCounts();
 }
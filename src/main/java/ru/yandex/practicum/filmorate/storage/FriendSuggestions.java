@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Рекомендация друзей: друзья друзей пользователя, упорядоченные по количеству общих друзей.
+ * Счетчики хранятся в хэш-таблице с открытой адресацией на int[], лучшие limit кандидатов отбираются
+ * min-кучей на long[], где в старших 32 битах количество общих друзей, в младших — инвертированный id,
+ * чтобы при равенстве выше был меньший id.
+ */
+public final class FriendSuggestions {
+    private FriendSuggestions() {
+    }
+
+    /**
+     * Подобрать возможных друзей
+     *
+     * @param userId    id пользователя
+     * @param friendsOf отсортированные id друзей по id пользователя, пустой массив, если друзей нет
+     * @param limit     максимальное количество рекомендаций
+     * @return возвращает id рекомендованных пользователей, сначала с наибольшим количеством общих друзей
+     */
+    public static int[] suggest(int userId, IntFunction<int[]> friendsOf, int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        int[] friends = friendsOf.apply(userId);
+        IntCounter counter = new IntCounter(friends.length * 16);
+
+        for (int friendId : friends) {
+            for (int candidateId : friendsOf.apply(friendId)) {
+                if (candidateId != userId) {
+                    counter.increment(candidateId);
+                }
+            }
+        }
+
+        long[] heap = new long[limit];
+        int heapSize = 0;
+
+        for (int i = 0; i < counter.keys.length; i++) {
+            int candidateId = counter.keys[i];
+            if (candidateId == IntCounter.EMPTY || Arrays.binarySearch(friends, candidateId) >= 0) {
+                continue;
+            }
+            long key = ((long) counter.counts[i] << 32) | (Integer.MAX_VALUE - candidateId);
+
+            if (heapSize < limit) {
+                heap[heapSize++] = key;
+                siftUp(heap, heapSize - 1);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        long[] ranked = Arrays.copyOf(heap, heapSize);
+        Arrays.sort(ranked);
+        int[] result = new int[heapSize];
+
+        for (int i = 0; i < heapSize; i++) {
+            result[i] = Integer.MAX_VALUE - (int) ranked[heapSize - 1 - i];
+        }
+
+        return result;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int index = 0;
+
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, smallest, index);
+            index = smallest;
+        }
+    }
+
+    private static void swap(long[] heap, int i, int j) {
+        long tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+
+    /**
+     * Счетчики по int-ключам без упаковки. Id пользователей положительные, 0 означает пустую ячейку
+     */
+    private static class IntCounter {
+        private static final int EMPTY = 0;
+
+        private int[] keys;
+        private int[] counts;
+        private int size;
+
+        private IntCounter(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(16, expectedSize) * 2 - 1) << 1;
+            keys = new int[capacity];
+            counts = new int[capacity];
+        }
+
+        private void increment(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = 1;
+
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) {
+                    continue;
+                }
+                int slot = mix(oldKeys[i]) & mask;
+
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+
+            return h ^ (h >>> 16);
+        }
+    }
+}
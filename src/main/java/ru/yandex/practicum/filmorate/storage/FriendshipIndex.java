@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.models.IdSet;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс таблицы friendship в памяти: для каждого пользователя отсортированные массивы id исходящих заявок
+ * (строки user_id = id, как подтвержденные, так и нет) и подтвержденных входящих (friend_id = id, accept = true).
+ * Друзья пользователя — объединение этих массивов, так же, как в запросах UserDBStorage.
+ * Загружается при старте, дальше поддерживается UserDBStorage после каждой успешной записи в friendship.
+ * Массивы не изменяются, запись заменяет их копией, поэтому чтение идет без блокировок.
+ * Перечитывание и запись разделены RefreshLock.
+ */
+@Slf4j
+@Component
+public class FriendshipIndex {
+    private static final String SQL_QUERY_FOR_GET_ALL_FRIENDSHIP = "SELECT user_id, friend_id, accept " +
+            "FROM friendship;";
+    private static final int[] EMPTY = new int[0];
+    private static final Adjacency EMPTY_ADJACENCY = new Adjacency(EMPTY, EMPTY);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshLock refreshLock = new RefreshLock();
+    private volatile ConcurrentHashMap<Integer, Adjacency> adjacency = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FriendshipIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        refresh();
+    }
+
+    /**
+     * Перечитать таблицу friendship целиком
+     *
+     * @return возвращает количество прочитанных строк
+     */
+    public int refresh() {
+        return refreshLock.refresh(this::load);
+    }
+
+    private int load() {
+        Map<Integer, IdSet> outgoing = new HashMap<>();
+        Map<Integer, IdSet> accepted = new HashMap<>();
+        int[] rows = new int[1];
+
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_FRIENDSHIP, (ResultSet rs) -> {
+            int userId = rs.getInt("user_id");
+            int friendId = rs.getInt("friend_id");
+
+            outgoing.computeIfAbsent(userId, id -> new IdSet()).add(friendId);
+            if (rs.getBoolean("accept")) {
+                accepted.computeIfAbsent(friendId, id -> new IdSet()).add(userId);
+            }
+            rows[0]++;
+        });
+
+        ConcurrentHashMap<Integer, Adjacency> loaded = new ConcurrentHashMap<>();
+        outgoing.forEach((userId, ids) -> loaded.put(userId, new Adjacency(ids.toIntArray(), EMPTY)));
+        accepted.forEach((userId, ids) -> loaded.merge(userId, new Adjacency(EMPTY, ids.toIntArray()),
+                (current, incoming) -> new Adjacency(current.outgoing, incoming.accepted)));
+
+        adjacency = loaded;
+        log.info("Friendship index loaded: {} rows, {} users", rows[0], loaded.size());
+
+        return rows[0];
+    }
+
+    /**
+     * Получить друзей пользователя
+     *
+     * @param userId
+     * @return возвращает отсортированный массив id друзей, пустой, если друзей нет
+     */
+    public int[] getFriends(int userId) {
+        Adjacency node = adjacency.getOrDefault(userId, EMPTY_ADJACENCY);
+
+        return union(node.outgoing, node.accepted);
+    }
+
+    /**
+     * Получить общих друзей двух пользователей
+     *
+     * @return возвращает отсортированный массив id общих друзей
+     */
+    public int[] getCommonFriends(int userId, int otherId) {
+        return intersect(getFriends(userId), getFriends(otherId));
+    }
+
+    /**
+     * Подобрать возможных друзей среди друзей друзей
+     *
+     * @param userId
+     * @param limit  максимальное количество рекомендаций
+     * @return возвращает id пользователей, сначала с наибольшим количеством общих друзей
+     */
+    public int[] suggestFriends(int userId, int limit) {
+        return FriendSuggestions.suggest(userId, this::getFriends, limit);
+    }
+
+    /**
+     * Учесть новую строку (userId, friendId, accept = false)
+     */
+    public void addFriendship(int userId, int friendId) {
+        refreshLock.change(() -> adjacency.compute(userId, (id, node) -> {
+            node = node == null ? EMPTY_ADJACENCY : node;
+
+            return new Adjacency(insert(node.outgoing, friendId), node.accepted);
+        }));
+    }
+
+    /**
+     * Учесть подтверждение строки (userId, friendId)
+     */
+    public void acceptFriendship(int userId, int friendId) {
+        refreshLock.change(() -> adjacency.compute(friendId, (id, node) -> {
+            node = node == null ? EMPTY_ADJACENCY : node;
+
+            return new Adjacency(node.outgoing, insert(node.accepted, userId));
+        }));
+    }
+
+    /**
+     * Учесть удаление строки (userId, friendId)
+     */
+    public void removeFriendship(int userId, int friendId) {
+        refreshLock.change(() -> {
+            ConcurrentHashMap<Integer, Adjacency> current = adjacency;
+            current.computeIfPresent(userId, (id, node) -> new Adjacency(remove(node.outgoing, friendId),
+                    node.accepted).orNullIfEmpty());
+            current.computeIfPresent(friendId, (id, node) -> new Adjacency(node.outgoing,
+                    remove(node.accepted, userId)).orNullIfEmpty());
+        });
+    }
+
+    public void removeUser(int userId) {
+        refreshLock.change(() -> adjacency.remove(userId));
+    }
+
+    private static int[] insert(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        position = -position - 1;
+
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+
+        return result;
+    }
+
+    private static int[] remove(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+
+        return result;
+    }
+
+    static int[] union(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+
+        if (a.length == 0) {
+            return b;
+        }
+
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[size++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[size++] = b[j++];
+            } else {
+                result[size++] = a[i++];
+                j++;
+            }
+        }
+
+        while (i < a.length) {
+            result[size++] = a[i++];
+        }
+
+        while (j < b.length) {
+            result[size++] = b[j++];
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i++];
+                j++;
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static class Adjacency {
+        private final int[] outgoing;
+        private final int[] accepted;
+
+        private Adjacency(int[] outgoing, int[] accepted) {
+            this.outgoing = outgoing;
+            this.accepted = accepted;
+        }
+
+        private Adjacency orNullIfEmpty() {
+            return outgoing.length == 0 && accepted.length == 0 ? null : this;
+        }
+    }
+}
@@ -4,95 +4,397 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exceptions.FilmAlreadyExistException;
 import ru.yandex.practicum.filmorate.exceptions.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
 import ru.yandex.practicum.filmorate.validators.FilmValidator;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Потокобезопасное хранилище фильмов в памяти. Поля сохраненного фильма не изменяются, обновление заменяет
+ * фильм копией. Лайки фильма лежат в отдельном наборе, который лайк и снятие лайка меняют на месте под
+ * блокировкой этого набора, поэтому лайк стоит O(1), а не копию всех лайков фильма. Читатели получают копию
+ * фильма со снимком лайков: копия нужна, чтобы фильм можно было сериализовать, пока лайки меняются.
+ * Количество лайков для сортировки и ранга автодополнения читается без копии.
+ * <p>
+ * Дубликаты ищутся по индексу idsByFilm: ключ — сохраненный фильм, его equals и hashCode учитывают только
+ * название, дату выхода и MPA, поэтому проверка занимает O(1). Этот и остальные индексы меняются под addLock
+ * вместе с фильмами, поэтому удаление не может проскочить между сохранением фильма и его индексацией.
+ * Фильмы упорядочены по id, поэтому страница находится за O(log n + limit). Даты выхода и продолжительности
+ * хранятся в упорядоченных индексах RangeIndex для запросов по диапазонам.
+ */
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
-    private static final Map<Integer, Film> FILMS = new HashMap<>();
-    private static final AtomicInteger ID_HOLDER = new AtomicInteger();
+    private final ConcurrentSkipListMap<Integer, Entry> films = new ConcurrentSkipListMap<>();
+    private final AtomicInteger idHolder = new AtomicInteger();
+    // проверка дубликата и вставка должны быть атомарны
+    private final Object addLock = new Object();
+    private final Map<Film, Integer> idsByFilm = new HashMap<>();
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final PrefixIndex names = new PrefixIndex(id -> {
+        Entry entry = films.get(id);
+
+        return entry == null ? 0 : entry.likeCount();
+    });
+    private final RangeIndex releaseDates = new RangeIndex();
+    private final RangeIndex durations = new RangeIndex();
 
     @Override
     public Film add(Film film) {
-        if (FILMS.containsValue(film)) {
-            throw new FilmAlreadyExistException(
-                    "Film " + film.getName() + " " + film.getReleaseDate() + " already exist"
-            );
+        synchronized (addLock) {
+            store(film);
+            searchIndex.putFilm(film.getId(), film.getName(), film.getDescription());
         }
-        FilmValidator.validate(film);
-        film.setId(ID_HOLDER.incrementAndGet());
-        FILMS.put(film.getId(), film);
 
         return film;
     }
 
+    /**
+     * Все фильмы проверяются на дубликаты до вставки первого, поэтому пачка с дубликатом не сохраняется
+     * целиком, как и в FilmDBStorage. Поисковый индекс получает фильмы одной пачкой
+     *
+     * @throws FilmAlreadyExistException если фильм уже сохранен или повторяется в пачке
+     */
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        FilmValidator.validateAll(films);
+
+        synchronized (addLock) {
+            Set<Film> batch = new HashSet<>();
+
+            for (Film film : films) {
+                if (idsByFilm.containsKey(film) || !batch.add(film)) {
+                    throw new FilmAlreadyExistException(
+                            "Film " + film.getName() + " " + film.getReleaseDate() + " already exist"
+                    );
+                }
+            }
+
+            for (Film film : films) {
+                store(film);
+            }
+            searchIndex.putFilms(films);
+        }
+
+        return films;
+    }
+
     @Override
     public Film deleteById(int id) {
-        Film film = FILMS.remove(id);
-        if (film == null) {
-            throw new FilmNotFoundException("Film with id:" + id + " not found");
+        Entry entry;
+
+        synchronized (addLock) {
+            entry = films.remove(id);
+            if (entry == null) {
+                throw new FilmNotFoundException("Film with id:" + id + " not found");
+            }
+            idsByFilm.remove(entry.film, id);
+            searchIndex.removeFilm(id);
+            names.remove(id);
+            releaseDates.remove(id);
+            durations.remove(id);
         }
 
-        return film;
+        return entry.snapshot();
     }
 
+    /**
+     * Лайки фильма при обновлении сохраняются, как и в FilmDBStorage
+     *
+     * @throws FilmAlreadyExistException если название, дата выхода и MPA совпадают с другим фильмом
+     */
     @Override
     public Film update(Film film) {
-        if (!FILMS.containsKey(film.getId())) {
+        if (!films.containsKey(film.getId())) {
             throw new FilmNotFoundException("Film with id:" + film.getId() + " not found");
         }
         FilmValidator.validate(film);
-        FILMS.put(film.getId(), film);
+        Entry updated;
 
-        return film;
+        synchronized (addLock) {
+            Integer sameId = idsByFilm.get(film);
+            if (sameId != null && sameId != film.getId()) {
+                throw new FilmAlreadyExistException(
+                        "Film " + film.getName() + " " + film.getReleaseDate() + " already exist"
+                );
+            }
+            Entry[] previous = new Entry[1];
+            // набор лайков переходит к новой записи, лайки во время обновления не теряются
+            updated = films.computeIfPresent(film.getId(), (id, current) -> {
+                previous[0] = current;
+
+                return new Entry(copyOf(film, new IdSet()), current.likes);
+            });
+
+            if (updated == null) {
+                throw new FilmNotFoundException("Film with id:" + film.getId() + " not found");
+            }
+            idsByFilm.remove(previous[0].film, film.getId());
+            idsByFilm.put(updated.film, film.getId());
+            searchIndex.putFilm(film.getId(), film.getName(), film.getDescription());
+            names.put(film.getId(), film.getName());
+            releaseDates.put(film.getId(), (int) film.getReleaseDate().toEpochDay());
+            durations.put(film.getId(), film.getDuration());
+        }
+
+        return updated.snapshot();
     }
 
+    /**
+     * @return возвращает копию списка фильмов, а не живое представление хранилища
+     */
     @Override
     public Collection<Film> getAll() {
-        return FILMS.values();
+        return films.values().stream()
+                .map(Entry::snapshot)
+                .collect(Collectors.toList());
     }
 
     @Override
-    public Film findById(int id) {
-        Film film = FILMS.get(id);
-        if (film == null) {
-            throw new FilmNotFoundException("Film with id:" + id + " not found");
+    public List<Film> getPage(int afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(Entry::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Если в самом узком из заданных диапазонов не больше RangeIndex.scanThreshold фильмов, перебирается он,
+     * иначе фильмы обходятся по id с проверкой обоих диапазонов до заполнения страницы
+     */
+    @Override
+    public List<Film> getPageInRange(LocalDate releasedFrom, LocalDate releasedTo, Integer minDuration,
+                                     Integer maxDuration, int afterId, int limit) {
+        int fromDay = releasedFrom == null ? Integer.MIN_VALUE : (int) releasedFrom.toEpochDay();
+        int toDay = releasedTo == null ? Integer.MAX_VALUE : (int) releasedTo.toEpochDay();
+        int fromDuration = minDuration == null ? Integer.MIN_VALUE : minDuration;
+        int toDuration = maxDuration == null ? Integer.MAX_VALUE : maxDuration;
+        int threshold = RangeIndex.scanThreshold(releaseDates.size(), limit);
+        // незаданный диапазон перебирать не нужно
+        int releasedCount = releasedFrom == null && releasedTo == null
+                ? Integer.MAX_VALUE
+                : releaseDates.count(fromDay, toDay, threshold + 1);
+        int durationCount = minDuration == null && maxDuration == null
+                ? Integer.MAX_VALUE
+                : durations.count(fromDuration, toDuration, threshold + 1);
+        Stream<Entry> candidates;
+
+        if (Math.min(releasedCount, durationCount) > threshold) {
+            candidates = films.tailMap(afterId, false).values().stream();
+        } else {
+            IdSet ids = releasedCount <= durationCount
+                    ? releaseDates.range(fromDay, toDay)
+                    : durations.range(fromDuration, toDuration);
+            candidates = Arrays.stream(ids.toIntArray())
+                    .filter(id -> id > afterId)
+                    .mapToObj(films::get)
+                    .filter(Objects::nonNull);
         }
 
-        return film;
+        return candidates
+                .filter(entry -> {
+                    long day = entry.film.getReleaseDate().toEpochDay();
+                    int duration = entry.film.getDuration();
+
+                    return day >= fromDay && day <= toDay && duration >= fromDuration && duration <= toDuration;
+                })
+                .limit(limit)
+                .map(Entry::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Film findById(int id) {
+        return entry(id).snapshot();
+    }
+
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        return snapshots(ids);
     }
 
+    /**
+     * Лайк стоит O(1), копия лайков снимается только для возвращаемого фильма
+     */
     @Override
     public Film addLikeToFilm(int filmId, int userId) {
-        Film film = findById(filmId);
-        film.addLike(userId);
+        Entry entry = entry(filmId);
+        if (entry.like(userId, true)) {
+            names.rankChanged(filmId);
+        }
 
-        return film;
+        return entry.snapshot();
+    }
+
+    @Override
+    public List<LikeResult> addLikes(List<Like> likes) {
+        List<LikeResult> results = new ArrayList<>(likes.size());
+
+        for (Like like : likes) {
+            Entry entry = films.get(like.getFilmId());
+
+            if (entry == null) {
+                results.add(LikeResult.of(like, LikeResult.Status.FILM_NOT_FOUND));
+            } else if (entry.like(like.getUserId(), true)) {
+                results.add(LikeResult.of(like, LikeResult.Status.ADDED));
+                names.rankChanged(like.getFilmId());
+            } else {
+                results.add(LikeResult.of(like, LikeResult.Status.ALREADY_EXISTS));
+            }
+        }
+
+        return results;
     }
 
     @Override
     public Film deleteLikeToFilm(int filmId, int userId) {
-        Film film = findById(filmId);
-        film.deleteLike(userId);
+        Entry entry = entry(filmId);
+        if (entry.like(userId, false)) {
+            names.rankChanged(filmId);
+        }
 
-        return film;
+        return entry.snapshot();
     }
 
     @Override
     public Set<Integer> getAllLikes(int filmId) {
-        Film film = findById(filmId);
-
-        return film.getLikes();
+        return entry(filmId).likesCopy();
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
-        List<Film> films = new ArrayList<>(getAll());
-        films.sort(Comparator.comparing(Film::getLikeCount).reversed());
+        return mostLiked(films.values().stream(), count);
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        return mostLiked(films.values().stream()
+                .filter(entry -> genreId == null || entry.film.getGenres().contains(genreId))
+                .filter(entry -> year == null || entry.film.getReleaseDate().getYear() == year), count);
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        return snapshots(searchIndex.search(query, limit));
+    }
+
+    @Override
+    public List<Film> autocomplete(String prefix, int limit) {
+        return snapshots(names.complete(prefix, limit));
+    }
+
+    @Override
+    public int reconcileLikeCounts() {
+        // количество лайков всегда считается по самому набору лайков, расходиться нечему
+        return 0;
+    }
+
+    /**
+     * Сохранить фильм и обновить все индексы, кроме поискового, вызывается под addLock
+     */
+    private void store(Film film) {
+        if (idsByFilm.containsKey(film)) {
+            throw new FilmAlreadyExistException(
+                    "Film " + film.getName() + " " + film.getReleaseDate() + " already exist"
+            );
+        }
+        FilmValidator.validate(film);
+        film.setId(idHolder.incrementAndGet());
+        Entry stored = new Entry(copyOf(film, new IdSet()),
+                film.getLikes() == null ? new IdSet() : film.getLikes().copy());
+        films.put(film.getId(), stored);
+        idsByFilm.put(stored.film, film.getId());
+        names.put(film.getId(), film.getName());
+        releaseDates.put(film.getId(), (int) film.getReleaseDate().toEpochDay());
+        durations.put(film.getId(), film.getDuration());
+    }
+
+    private Entry entry(int id) {
+        Entry entry = films.get(id);
+        if (entry == null) {
+            throw new FilmNotFoundException("Film with id:" + id + " not found");
+        }
+
+        return entry;
+    }
+
+    /**
+     * Самые популярные фильмы, при равном количестве лайков — по id. Количество лайков читается один раз
+     * до сортировки, чтобы лайки во время сортировки не меняли порядок сравнения
+     */
+    private static List<Film> mostLiked(Stream<Entry> entries, int count) {
+        return entries
+                .map(entry -> Map.entry(entry, entry.likeCount()))
+                .sorted(Map.Entry.<Entry, Integer>comparingByValue().reversed()
+                        .thenComparing(counted -> counted.getKey().film.getId()))
+                .limit(count)
+                .map(counted -> counted.getKey().snapshot())
+                .collect(Collectors.toList());
+    }
+
+    private List<Film> snapshots(int[] ids) {
+        return Arrays.stream(ids)
+                .mapToObj(films::get)
+                .filter(Objects::nonNull)
+                .map(Entry::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    private static Film copyOf(Film film, IdSet likes) {
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .mpa(film.getMpa())
+                .duration(film.getDuration())
+                .likes(likes)
+                .genre(film.getGenres() == null ? null : new HashSet<>(film.getGenres()))
+                .build();
+    }
+
+    /**
+     * Сохраненный фильм: неизменяемые поля и набор лайков, который меняется на месте под своей блокировкой.
+     * Лайки поля film не используются
+     */
+    private static class Entry {
+        private final Film film;
+        private final IdSet likes;
+
+        private Entry(Film film, IdSet likes) {
+            this.film = film;
+            this.likes = likes;
+        }
+
+        /**
+         * @return возвращает false, если набор лайков не изменился
+         */
+        private boolean like(int userId, boolean like) {
+            synchronized (likes) {
+                return like ? likes.add(userId) : likes.remove(userId);
+            }
+        }
 
-        return films.stream().limit(count).collect(Collectors.toList());
+        private int likeCount() {
+            synchronized (likes) {
+                return likes.size();
+            }
+        }
+
+        private IdSet likesCopy() {
+            synchronized (likes) {
+                return likes.copy();
+            }
+        }
+
+        private Film snapshot() {
+            return copyOf(film, likesCopy());
+        }
     }
 }
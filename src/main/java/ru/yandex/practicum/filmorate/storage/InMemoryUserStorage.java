@@ -1,121 +1,436 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
 import ru.yandex.practicum.filmorate.exceptions.UserAlreadyExistException;
 import ru.yandex.practicum.filmorate.exceptions.UserNotFoundException;
+import ru.yandex.practicum.filmorate.models.IdSet;
 import ru.yandex.practicum.filmorate.models.User;
 import ru.yandex.practicum.filmorate.validators.UserValidator;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/**
+ * Потокобезопасное хранилище пользователей в памяти с заявками в друзья, как в таблице friendship:
+ * addFriend создает неподтвержденную заявку, confirmFriendship ее подтверждает. Друзья пользователя —
+ * его заявки и подтвержденные входящие, friendsId — только подтвержденные в обе стороны, как в UserDBStorage.
+ * <p>
+ * Записи пользователей не изменяются, изменение заменяет запись копией, а наружу выдаются копии записей.
+ * Каждая запись защищена одной из STRIPES блокировок; изменение дружбы берет блокировки обоих пользователей
+ * в порядке номера блокировки, поэтому обе стороны меняются атомарно и без взаимных блокировок. Чтение
+ * одного пользователя идет без блокировок, общие друзья читаются под блокировками чтения обоих пользователей.
+ * <p>
+ * Пользователи упорядочены по id, поэтому страница берется из хвоста карты за O(log n + limit).
+ * <p>
+ * Email и логин уникальны, как в таблице users: индексы idsByEmail и idsByLogin дают проверку дубликата
+ * и поиск за O(1) и меняются под addLock вместе с пользователями.
+ */
 @Component
 public class InMemoryUserStorage implements UserStorage {
-    private static final Map<Integer, User> USERS = new HashMap<>();
-    private static final AtomicInteger ID_HOLDER = new AtomicInteger();
+    private static final int STRIPES = 64;
+
+    private final ConcurrentSkipListMap<Integer, Entry> users = new ConcurrentSkipListMap<>();
+    private final AtomicInteger idHolder = new AtomicInteger();
+    // проверка дубликата и вставка должны быть атомарны
+    private final Object addLock = new Object();
+    private final Map<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsByLogin = new ConcurrentHashMap<>();
+    private final ReadWriteLock[] stripes = new ReadWriteLock[STRIPES];
+    private final PrefixIndex names = new PrefixIndex();
+
+    public InMemoryUserStorage() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
 
     @Override
     public User add(User user) {
-        if (USERS.containsValue(user)) {
-            throw new UserAlreadyExistException("User with email:" + user.getEmail() + " already exist");
+        synchronized (addLock) {
+            checkUnique(user, 0);
+            user.setId(idHolder.incrementAndGet());
+            UserValidator.validate(user);
+            users.put(user.getId(), new Entry(copyOf(user, new IdSet()), new IdSet(), new IdSet(), new IdSet(),
+                    new IdSet()));
+            idsByEmail.put(user.getEmail(), user.getId());
+            idsByLogin.put(user.getLogin(), user.getId());
         }
-        user.setId(ID_HOLDER.incrementAndGet());
-        UserValidator.validate(user);
-        USERS.put(user.getId(), user);
+        names.put(user.getId(), user.getLogin(), user.getName());
 
         return user;
     }
 
+    @Override
+    public List<User> addAll(List<User> users) {
+        UserValidator.validateAll(users);
+        users.forEach(this::add);
+
+        return users;
+    }
+
+    /**
+     * Заявки удаленного пользователя и заявки ему, в том числе неподтвержденные, удаляются у всех остальных
+     * пользователей
+     */
     @Override
     public User deleteById(int id) {
-        User user = USERS.remove(id);
-        if (user == null) {
-            throw new UserNotFoundException("User with id:" + id + " not found");
+        Entry entry;
+
+        synchronized (addLock) {
+            entry = withLocks(id, id, true, () -> users.remove(id));
+            if (entry == null) {
+                throw new UserNotFoundException("User with id:" + id + " not found");
+            }
+            idsByEmail.remove(entry.user.getEmail(), id);
+            idsByLogin.remove(entry.user.getLogin(), id);
         }
+        names.remove(id);
 
-        return user;
+        IdSet related = entry.outgoing.copy();
+        related.or(entry.incoming);
+        for (int otherId : related.toIntArray()) {
+            withLocks(id, otherId, true, () -> {
+                Entry other = users.get(otherId);
+                if (other != null) {
+                    IdSet outgoing = without(other.outgoing, id);
+                    IdSet outgoingAccepted = without(other.outgoingAccepted, id);
+                    IdSet incoming = without(other.incoming, id);
+                    IdSet incomingAccepted = without(other.incomingAccepted, id);
+                    users.put(otherId, other.withFriendships(outgoing, outgoingAccepted, incoming,
+                            incomingAccepted));
+                }
+
+                return null;
+            });
+        }
+
+        return entry.user;
     }
 
+    /**
+     * @throws UserAlreadyExistException если email или логин заняты другим пользователем
+     */
     @Override
     public User update(User user) {
-        if (!USERS.containsKey(user.getId())) {
+        if (!users.containsKey(user.getId())) {
             throw new UserNotFoundException("User with:" + user.getId() + " not found");
         }
         UserValidator.validate(user);
-        USERS.put(user.getId(), user);
 
-        return user;
+        synchronized (addLock) {
+            checkUnique(user, user.getId());
+
+            return withLocks(user.getId(), user.getId(), true, () -> {
+                Entry entry = getEntry(user.getId());
+                Entry updated = new Entry(copyOf(user, entry.user.getFriendsId()), entry.outgoing,
+                        entry.outgoingAccepted, entry.incoming, entry.incomingAccepted);
+                users.put(user.getId(), updated);
+                idsByEmail.remove(entry.user.getEmail(), user.getId());
+                idsByLogin.remove(entry.user.getLogin(), user.getId());
+                idsByEmail.put(user.getEmail(), user.getId());
+                idsByLogin.put(user.getLogin(), user.getId());
+                names.put(user.getId(), user.getLogin(), user.getName());
+
+                return updated.snapshot();
+            });
+        }
     }
 
+    /**
+     * @return возвращает копию списка пользователей, а не живое представление хранилища
+     */
     @Override
     public Collection<User> getAll() {
-        return USERS.values();
+        return users.values().stream().map(Entry::snapshot).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(Entry::snapshot)
+                .collect(Collectors.toList());
     }
 
     @Override
     public User findById(int id) {
-        User user = USERS.get(id);
-        if (user == null) {
-            throw new UserNotFoundException("User with id:" + id + " not found");
+        return getEntry(id).snapshot();
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        Integer id = idsByEmail.get(email);
+        if (id == null) {
+            throw new UserNotFoundException("User with email:" + email + " not found");
         }
 
-        return user;
+        return findById(id);
     }
 
+    @Override
+    public User findByLogin(String login) {
+        Integer id = idsByLogin.get(login);
+        if (id == null) {
+            throw new UserNotFoundException("User with login:" + login + " not found");
+        }
+
+        return findById(id);
+    }
+
+    /**
+     * @throws IncorrectParameterException если пользователь добавляет в друзья сам себя, как и в UserDBStorage
+     */
     @Override
     public User addFriend(int userId, int friendId) {
-        User user = findById(userId);
-        User friend = findById(friendId);
+        if (userId == friendId) {
+            throw new IncorrectParameterException("friendId");
+        }
 
-        user.addNewFriend(friendId);
-        friend.addNewFriend(userId);
+        return withLocks(userId, friendId, true, () -> {
+            Entry user = getEntry(userId);
+            Entry friend = getEntry(friendId);
 
-        return user;
+            if (user.outgoing.contains(friendId)) {
+                return user.snapshot();
+            }
+            users.put(friendId, friend.withFriendships(friend.outgoing, friend.outgoingAccepted,
+                    with(friend.incoming, userId), friend.incomingAccepted));
+            Entry updated = user.withFriendships(with(user.outgoing, friendId), user.outgoingAccepted,
+                    user.incoming, user.incomingAccepted);
+            users.put(userId, updated);
+
+            return updated.snapshot();
+        });
     }
 
+    /**
+     * Если заявки от requestingUser нет, ничего не меняется, как и в UserDBStorage
+     */
     @Override
     public User confirmFriendship(int userId, int requestingUser) {
-        throw new UnsupportedOperationException("InMemoryUserStorage.confirmFriendship() unsupported");
+        return withLocks(userId, requestingUser, true, () -> {
+            Entry user = getEntry(userId);
+            Entry requesting = getEntry(requestingUser);
+
+            if (!requesting.outgoing.contains(userId) || requesting.outgoingAccepted.contains(userId)) {
+                return user.snapshot();
+            }
+            users.put(requestingUser, requesting.withFriendships(requesting.outgoing,
+                    with(requesting.outgoingAccepted, userId), requesting.incoming, requesting.incomingAccepted));
+            Entry updated = user.withFriendships(user.outgoing, user.outgoingAccepted, user.incoming,
+                    with(user.incomingAccepted, requestingUser));
+            users.put(userId, updated);
+
+            return updated.snapshot();
+        });
     }
 
     @Override
     public User deleteFriendToTheUser(int userId, int friendId) {
-        User user = findById(userId);
-        User friend = findById(friendId);
+        return withLocks(userId, friendId, true, () -> {
+            Entry user = getEntry(userId);
+            Entry friend = getEntry(friendId);
 
-        user.deleteFriend(friendId);
-        friend.deleteFriend(userId);
+            if (!user.outgoing.contains(friendId)) {
+                return user.snapshot();
+            }
+            users.put(friendId, friend.withFriendships(friend.outgoing, friend.outgoingAccepted,
+                    without(friend.incoming, userId), without(friend.incomingAccepted, userId)));
+            Entry updated = user.withFriendships(without(user.outgoing, friendId),
+                    without(user.outgoingAccepted, friendId), user.incoming, user.incomingAccepted);
+            users.put(userId, updated);
 
-        return user;
+            return updated.snapshot();
+        });
     }
 
     @Override
     public Set<User> getCommonFriends(int userId, int friendId) {
-        User user = findById(userId);
-        User friend = findById(friendId);
+        IdSet commonIds = withLocks(userId, friendId, false, () ->
+                getEntry(userId).friends().intersect(getEntry(friendId).friends()));
         Set<User> commonFriends = new HashSet<>();
 
-        for (int userFriendId : user.getFriendsId()) {
-            if (friend.getFriendsId().contains(userFriendId)) {
-                User commonFriend = findById(userFriendId);
-                commonFriends.add(commonFriend);
+        for (int commonFriendId : commonIds.toIntArray()) {
+            Entry commonFriend = users.get(commonFriendId);
+            if (commonFriend != null) {
+                commonFriends.add(commonFriend.snapshot());
             }
         }
+
         return commonFriends;
     }
 
     @Override
     public List<User> getAllUsersFriendsById(int id) {
-        User user = findById(id);
-        Set<Integer> allFriendsId = user.getFriendsId();
         List<User> friends = new ArrayList<>();
 
-        for (int friendId : allFriendsId) {
-            User friend = findById(friendId);
-            friends.add(friend);
+        for (int friendId : getEntry(id).friends().toIntArray()) {
+            Entry friend = users.get(friendId);
+            if (friend != null) {
+                friends.add(friend.snapshot());
+            }
         }
 
         return friends;
     }
 
+    @Override
+    public List<User> getFriendSuggestions(int id, int limit, boolean withFriendsIds) {
+        findById(id);
+        int[] ids = FriendSuggestions.suggest(id, userId -> {
+            Entry entry = users.get(userId);
+
+            return entry == null ? new int[0] : entry.friends().toIntArray();
+        }, limit);
+
+        // пользователь мог быть удален после подсчета
+        return Arrays.stream(ids)
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .map(Entry::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> autocomplete(String prefix, int limit, boolean withFriendsIds) {
+        return Arrays.stream(names.complete(prefix, limit))
+                .mapToObj(users::get)
+                .filter(Objects::nonNull)
+                .map(Entry::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Проверить, что email и логин не заняты другими пользователями, вызывается под addLock
+     *
+     * @param id id проверяемого пользователя, 0 для нового
+     */
+    private void checkUnique(User user, int id) {
+        Integer emailOwner = idsByEmail.get(user.getEmail());
+        if (emailOwner != null && emailOwner != id) {
+            throw new UserAlreadyExistException("User with email:" + user.getEmail() + " already exist");
+        }
+
+        Integer loginOwner = idsByLogin.get(user.getLogin());
+        if (loginOwner != null && loginOwner != id) {
+            throw new UserAlreadyExistException("User with login:" + user.getLogin() + " already exist");
+        }
+    }
+
+    private Entry getEntry(int id) {
+        Entry entry = users.get(id);
+        if (entry == null) {
+            throw new UserNotFoundException("User with id:" + id + " not found");
+        }
+
+        return entry;
+    }
+
+    /**
+     * Выполнить action под блокировками обоих пользователей, блокировки берутся по возрастанию номера
+     */
+    private <T> T withLocks(int firstId, int secondId, boolean write, Supplier<T> action) {
+        int first = Math.floorMod(firstId, STRIPES);
+        int second = Math.floorMod(secondId, STRIPES);
+        Lock lower = lock(stripes[Math.min(first, second)], write);
+        Lock upper = first == second ? null : lock(stripes[Math.max(first, second)], write);
+
+        lower.lock();
+        try {
+            if (upper != null) {
+                upper.lock();
+            }
+            try {
+                return action.get();
+            } finally {
+                if (upper != null) {
+                    upper.unlock();
+                }
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    private static Lock lock(ReadWriteLock lock, boolean write) {
+        return write ? lock.writeLock() : lock.readLock();
+    }
+
+    private static IdSet with(IdSet ids, int id) {
+        IdSet copy = ids.copy();
+        copy.add(id);
+
+        return copy;
+    }
+
+    private static IdSet without(IdSet ids, int id) {
+        if (!ids.contains(id)) {
+            return ids;
+        }
+        IdSet copy = ids.copy();
+        copy.remove(id);
+
+        return copy;
+    }
+
+    private static User copyOf(User user, IdSet friendsId) {
+        return User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .login(user.getLogin())
+                .name(user.getName())
+                .birthday(user.getBirthday())
+                .friendsId(friendsId)
+                .build();
+    }
+
+    /**
+     * Пользователь и его строки friendship: outgoing — все его заявки, outgoingAccepted — подтвержденные из них,
+     * incoming — все заявки ему, incomingAccepted — подтвержденные из них. Наборы не изменяются после создания записи
+     */
+    private static class Entry {
+        private final User user;
+        private final IdSet outgoing;
+        private final IdSet outgoingAccepted;
+        private final IdSet incoming;
+        private final IdSet incomingAccepted;
+
+        private Entry(User user, IdSet outgoing, IdSet outgoingAccepted, IdSet incoming, IdSet incomingAccepted) {
+            this.user = user;
+            this.outgoing = outgoing;
+            this.outgoingAccepted = outgoingAccepted;
+            this.incoming = incoming;
+            this.incomingAccepted = incomingAccepted;
+        }
+
+        private Entry withFriendships(IdSet outgoing, IdSet outgoingAccepted, IdSet incoming,
+                                      IdSet incomingAccepted) {
+            IdSet friendsId = outgoingAccepted.copy();
+            friendsId.or(incomingAccepted);
+
+            return new Entry(copyOf(user, friendsId), outgoing, outgoingAccepted, incoming, incomingAccepted);
+        }
+
+        /**
+         * Копия пользователя для выдачи наружу: записи хранилища не должны меняться вызывающим кодом
+         */
+        private User snapshot() {
+            return copyOf(user, user.getFriendsId().copy());
+        }
+
+        private IdSet friends() {
+            IdSet friends = outgoing.copy();
+            friends.or(incomingAccepted);
+
+            return friends;
+        }
+    }
 }
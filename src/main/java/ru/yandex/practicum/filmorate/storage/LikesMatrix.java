@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.models.Like;
+
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таблица likes в памяти как разреженная матрица пользователь×фильм: по строке (фильмы пользователя)
+ * и по столбцу (пользователи фильма) в виде IdSet. Загружается при старте, дальше поддерживается FilmDBStorage
+ * после каждой записи в likes и перечитывается при сверке счетчиков лайков.
+ * Опубликованные наборы не изменяются, запись заменяет набор копией, поэтому читатели получают
+ * согласованный снимок без блокировок и не должны его изменять. Пачка лайков копирует набор каждого
+ * пользователя и фильма один раз. Перечитывание и запись разделены RefreshLock.
+ */
+@Slf4j
+@Component
+public class LikesMatrix {
+    private static final String SQL_QUERY_FOR_GET_ALL_LIKES = "SELECT film_id, user_id FROM likes;";
+    private static final IdSet EMPTY = new IdSet();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshLock refreshLock = new RefreshLock();
+    private volatile Snapshot snapshot = new Snapshot(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+    @Autowired
+    public LikesMatrix(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        refresh();
+    }
+
+    /**
+     * Перечитать таблицу likes целиком
+     *
+     * @return возвращает количество прочитанных лайков
+     */
+    public int refresh() {
+        return refreshLock.refresh(this::load);
+    }
+
+    private int load() {
+        Map<Integer, IdSet> filmsByUser = new HashMap<>();
+        Map<Integer, IdSet> usersByFilm = new HashMap<>();
+        int[] rows = new int[1];
+
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_LIKES, (ResultSet rs) -> {
+            int filmId = rs.getInt("film_id");
+            int userId = rs.getInt("user_id");
+
+            filmsByUser.computeIfAbsent(userId, id -> new IdSet()).add(filmId);
+            usersByFilm.computeIfAbsent(filmId, id -> new IdSet()).add(userId);
+            rows[0]++;
+        });
+
+        snapshot = new Snapshot(new ConcurrentHashMap<>(filmsByUser), new ConcurrentHashMap<>(usersByFilm));
+        log.info("Likes matrix loaded: {} likes, {} users, {} films", rows[0], filmsByUser.size(),
+                usersByFilm.size());
+
+        return rows[0];
+    }
+
+    /**
+     * Получить фильмы, которые лайкнул пользователь
+     *
+     * @return возвращает неизменяемый снимок, пустой, если лайков нет
+     */
+    public IdSet getFilms(int userId) {
+        return snapshot.filmsByUser.getOrDefault(userId, EMPTY);
+    }
+
+    /**
+     * Получить пользователей, которые лайкнули фильм
+     *
+     * @return возвращает неизменяемый снимок, пустой, если лайков нет
+     */
+    public IdSet getUsers(int filmId) {
+        return snapshot.usersByFilm.getOrDefault(filmId, EMPTY);
+    }
+
+    public void addLike(int filmId, int userId) {
+        refreshLock.change(() -> {
+            Snapshot current = snapshot;
+            current.filmsByUser.compute(userId, (id, films) -> with(films, IdSet.of(filmId)));
+            current.usersByFilm.compute(filmId, (id, users) -> with(users, IdSet.of(userId)));
+        });
+    }
+
+    /**
+     * Добавить пачку лайков: лайки группируются по пользователям и фильмам, и набор каждого из них
+     * копируется один раз на пачку, а не на каждый лайк
+     */
+    public void addLikes(Collection<Like> likes) {
+        Map<Integer, IdSet> filmsByUser = new HashMap<>();
+        Map<Integer, IdSet> usersByFilm = new HashMap<>();
+
+        for (Like like : likes) {
+            filmsByUser.computeIfAbsent(like.getUserId(), id -> new IdSet()).add(like.getFilmId());
+            usersByFilm.computeIfAbsent(like.getFilmId(), id -> new IdSet()).add(like.getUserId());
+        }
+
+        refreshLock.change(() -> {
+            Snapshot current = snapshot;
+            filmsByUser.forEach((userId, added) ->
+                    current.filmsByUser.compute(userId, (id, films) -> with(films, added)));
+            usersByFilm.forEach((filmId, added) ->
+                    current.usersByFilm.compute(filmId, (id, users) -> with(users, added)));
+        });
+    }
+
+    public void removeLike(int filmId, int userId) {
+        refreshLock.change(() -> {
+            Snapshot current = snapshot;
+            current.filmsByUser.computeIfPresent(userId, (id, films) -> without(films, filmId));
+            current.usersByFilm.computeIfPresent(filmId, (id, users) -> without(users, userId));
+        });
+    }
+
+    public void removeFilm(int filmId) {
+        refreshLock.change(() -> {
+            Snapshot current = snapshot;
+            IdSet users = current.usersByFilm.remove(filmId);
+
+            if (users != null) {
+                users.forEach(userId -> current.filmsByUser.computeIfPresent(userId,
+                        (id, films) -> without(films, filmId)));
+            }
+        });
+    }
+
+    private static IdSet with(IdSet ids, IdSet added) {
+        IdSet copy = ids == null ? new IdSet() : ids.copy();
+        copy.or(added);
+
+        return copy;
+    }
+
+    private static IdSet without(IdSet ids, int id) {
+        IdSet copy = ids.copy();
+        copy.remove(id);
+
+        return copy.isEmpty() ? null : copy;
+    }
+
+    private static class Snapshot {
+        private final ConcurrentHashMap<Integer, IdSet> filmsByUser;
+        private final ConcurrentHashMap<Integer, IdSet> usersByFilm;
+
+        private Snapshot(ConcurrentHashMap<Integer, IdSet> filmsByUser, ConcurrentHashMap<Integer, IdSet> usersByFilm) {
+            this.filmsByUser = filmsByUser;
+            this.usersByFilm = usersByFilm;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинги фильмов по сегментам: жанр, год выхода и жанр с годом. Каждый сегмент — упорядоченное множество
+ * ключей (количество лайков по убыванию, id по возрастанию), поэтому топ любого сегмента читается с начала
+ * множества за O(count), а лайк переставляет фильм во всех его сегментах за O(log n).
+ * Загружается при старте, дальше поддерживается FilmDBStorage и перечитывается при сверке счетчиков лайков;
+ * перечитывание и изменения разделены RefreshLock.
+ */
+@Slf4j
+@Component
+public class PopularityIndex {
+    private static final String SQL_QUERY_FOR_GET_ALL_RANKS = "SELECT film_id, like_count, release_date FROM films;";
+    private static final String SQL_QUERY_FOR_GET_ALL_GENRES = "SELECT film_id, genre_id FROM film_genre;";
+    private static final int[] NO_GENRES = new int[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RefreshLock refreshLock = new RefreshLock();
+    private volatile Snapshot snapshot = new Snapshot();
+
+    @Autowired
+    public PopularityIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        refresh();
+    }
+
+    /**
+     * Перечитать лайки, годы и жанры всех фильмов
+     *
+     * @return возвращает количество фильмов
+     */
+    public int refresh() {
+        return refreshLock.refresh(this::load);
+    }
+
+    private int load() {
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        Map<Integer, Integer> years = new HashMap<>();
+        Map<Integer, List<Integer>> genres = new HashMap<>();
+
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_RANKS, (ResultSet rs) -> {
+            int filmId = rs.getInt("film_id");
+            likeCounts.put(filmId, rs.getInt("like_count"));
+            years.put(filmId, rs.getDate("release_date").toLocalDate().getYear());
+        });
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_GENRES, (ResultSet rs) -> {
+            genres.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+
+        Snapshot loaded = new Snapshot();
+        likeCounts.forEach((filmId, likeCount) -> {
+            int[] filmGenres = genres.getOrDefault(filmId, List.of()).stream().mapToInt(Integer::intValue).toArray();
+            Rank rank = new Rank(likeCount, years.get(filmId), filmGenres);
+            loaded.ranks.put(filmId, rank);
+            loaded.insert(filmId, rank);
+        });
+
+        snapshot = loaded;
+        log.info("Popularity index loaded: {} films, {} segments", likeCounts.size(), loaded.segments.size());
+
+        return likeCounts.size();
+    }
+
+    /**
+     * Получить самые популярные фильмы сегмента
+     *
+     * @param count   количество фильмов
+     * @param genreId id жанра или null для любого жанра
+     * @param year    год выхода или null для любого года
+     * @return возвращает id фильмов по убыванию количества лайков, при равенстве — по возрастанию id
+     */
+    public int[] getTop(int count, Integer genreId, Integer year) {
+        Set<Long> segment = snapshot.segments.get(segmentKey(genreId == null ? 0 : genreId, year == null ? 0 : year));
+
+        if (segment == null || count <= 0) {
+            return new int[0];
+        }
+        // пока лайк переставляет фильм, он на мгновение есть в сегменте дважды
+        Set<Integer> top = new LinkedHashSet<>();
+
+        for (Iterator<Long> keys = segment.iterator(); keys.hasNext() && top.size() < count; ) {
+            top.add((int) keys.next().longValue());
+        }
+
+        return top.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return возвращает количество лайков фильма, 0 для неизвестного фильма
+     */
+    public int getLikeCount(int filmId) {
+        Rank rank = snapshot.ranks.get(filmId);
+
+        return rank == null ? 0 : rank.likeCount;
+    }
+
+    /**
+     * Учесть новый или обновленный фильм, количество лайков обновленного фильма сохраняется
+     */
+    public void putFilm(int filmId, int year, Collection<Integer> genres) {
+        int[] filmGenres = genres == null ? NO_GENRES : genres.stream().mapToInt(Integer::intValue).toArray();
+
+        refreshLock.change(() -> {
+            Snapshot current = snapshot;
+
+            current.ranks.compute(filmId, (id, rank) -> {
+                // сегменты старой и новой версии могут совпадать, поэтому сначала удаление
+                if (rank != null) {
+                    current.remove(filmId, rank);
+                }
+                Rank updated = new Rank(rank == null ? 0 : rank.likeCount, year, filmGenres);
+                current.insert(filmId, updated);
+
+                return updated;
+            });
+        });
+    }
+
+    /**
+     * Учесть изменение количества лайков фильма
+     */
+    public void changeLikes(int filmId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        refreshLock.change(() -> {
+            Snapshot current = snapshot;
+
+            current.ranks.computeIfPresent(filmId, (id, rank) -> {
+                Rank updated = new Rank(rank.likeCount + delta, rank.year, rank.genres);
+                current.insert(filmId, updated);
+                current.remove(filmId, rank);
+
+                return updated;
+            });
+        });
+    }
+
+    public void removeFilm(int filmId) {
+        refreshLock.change(() -> {
+            Snapshot current = snapshot;
+
+            current.ranks.computeIfPresent(filmId, (id, rank) -> {
+                current.remove(filmId, rank);
+
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Ключ сегмента: жанр в старших 32 битах, год в младших, 0 означает любой
+     */
+    private static long segmentKey(int genreId, int year) {
+        return ((long) genreId << 32) | year;
+    }
+
+    /**
+     * Ключ фильма в сегменте: сначала больше лайков, при равенстве меньший id
+     */
+    private static long filmKey(int filmId, int likeCount) {
+        return ((long) (Integer.MAX_VALUE - likeCount) << 32) | filmId;
+    }
+
+    private static class Rank {
+        private final int likeCount;
+        private final int year;
+        private final int[] genres;
+
+        private Rank(int likeCount, int year, int[] genres) {
+            this.likeCount = likeCount;
+            this.year = year;
+            this.genres = genres;
+        }
+    }
+
+    private static class Snapshot {
+        private final ConcurrentHashMap<Integer, Rank> ranks = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, ConcurrentSkipListSet<Long>> segments = new ConcurrentHashMap<>();
+
+        private void insert(int filmId, Rank rank) {
+            long key = filmKey(filmId, rank.likeCount);
+
+            segments.computeIfAbsent(segmentKey(0, rank.year), id -> new ConcurrentSkipListSet<>()).add(key);
+            for (int genreId : rank.genres) {
+                segments.computeIfAbsent(segmentKey(genreId, 0), id -> new ConcurrentSkipListSet<>()).add(key);
+                segments.computeIfAbsent(segmentKey(genreId, rank.year), id -> new ConcurrentSkipListSet<>()).add(key);
+            }
+        }
+
+        private void remove(int filmId, Rank rank) {
+            long key = filmKey(filmId, rank.likeCount);
+
+            remove(segmentKey(0, rank.year), key);
+            for (int genreId : rank.genres) {
+                remove(segmentKey(genreId, 0), key);
+                remove(segmentKey(genreId, rank.year), key);
+            }
+        }
+
+        private void remove(long segmentKey, long key) {
+            Set<Long> segment = segments.get(segmentKey);
+
+            if (segment != null) {
+                segment.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Автодополнение по началу строки: отсортированная карта ключей «строка\0id» → id, поэтому все строки
+ * с заданным префиксом идут подряд и находятся за O(log n). Строки приводятся к нижнему регистру, ё заменяется
+ * на е. Записи упорядочиваются по рангу (для фильмов — количество лайков) среди всех совпадений, а не их части.
+ * <p>
+ * Для префиксов, у которых больше CACHED_PREFIX_MIN_MATCHES совпадений, хранится список TOP_SIZE лучших записей.
+ * Запись, ранг которой вырос, добавляется в списки своих префиксов; запись, ранг которой упал или которая удалена,
+ * уменьшает глубину списка, в пределах которой он точен. Когда глубины не хватает на запрос, список строится
+ * заново перебором совпадений. Поэтому ответ для коротких префиксов не зависит от размера индекса.
+ * Ранг читается функцией rank, об изменении ранга записи индексу сообщает rankChanged.
+ */
+public class PrefixIndex {
+    static final int CACHED_PREFIX_MIN_MATCHES = 1000;
+    static final int TOP_SIZE = 100;
+    private static final char SEPARATOR = '\0';
+    private static final String[] NO_KEYS = new String[0];
+    // больший ранг выше, при равенстве — по алфавиту
+    private static final Comparator<Candidate> BY_RANK = Comparator
+            .comparingInt((Candidate candidate) -> candidate.rank).reversed()
+            .thenComparing(candidate -> candidate.key);
+
+    private final ConcurrentSkipListMap<String, Integer> entries = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Integer, String[]> keys = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TopList> tops = new ConcurrentHashMap<>();
+    private final IntUnaryOperator rank;
+
+    /**
+     * Индекс без ранжирования, записи по алфавиту
+     */
+    public PrefixIndex() {
+        this(id -> 0);
+    }
+
+    /**
+     * @param rank ранг записи по id, больший ранг выше
+     */
+    public PrefixIndex(IntUnaryOperator rank) {
+        this.rank = rank;
+    }
+
+    /**
+     * Заменить строки записи, ранг записи сохраняется
+     *
+     * @param id     id фильма или пользователя
+     * @param values строки записи, null пропускаются
+     */
+    public void put(int id, String... values) {
+        String[][] previous = new String[1][];
+        String[] current = keys.compute(id, (key, old) -> {
+            previous[0] = old == null ? NO_KEYS : old;
+            for (String entry : previous[0]) {
+                entries.remove(entry);
+            }
+            String[] added = Arrays.stream(values)
+                    .filter(Objects::nonNull)
+                    .map(value -> normalize(value) + SEPARATOR + id)
+                    .distinct()
+                    .toArray(String[]::new);
+
+            for (String entry : added) {
+                entries.put(entry, id);
+            }
+
+            return added;
+        });
+        updateTops(id, previous[0], current);
+    }
+
+    public void remove(int id) {
+        String[][] previous = new String[1][];
+        keys.computeIfPresent(id, (key, old) -> {
+            previous[0] = old;
+            for (String entry : old) {
+                entries.remove(entry);
+            }
+
+            return null;
+        });
+
+        if (previous[0] != null) {
+            updateTops(id, previous[0], NO_KEYS);
+        }
+    }
+
+    /**
+     * Учесть изменение ранга записи, вызывается после изменения
+     */
+    public void rankChanged(int id) {
+        String[] current = keys.get(id);
+
+        if (current != null) {
+            updateTops(id, current, NO_KEYS);
+        }
+    }
+
+    /**
+     * Учесть изменение рангов сразу многих записей, например после сверки счетчиков лайков:
+     * списки лучших записей строятся заново при следующих запросах
+     */
+    public void ranksChanged() {
+        tops.clear();
+    }
+
+    /**
+     * Найти записи, строки которых начинаются с префикса
+     *
+     * @param prefix начало строки
+     * @param limit  максимальное количество записей
+     * @return возвращает id записей по убыванию ранга, при равенстве — по алфавиту
+     */
+    public int[] complete(String prefix, int limit) {
+        String from = normalize(prefix);
+
+        if (limit > TOP_SIZE) {
+            return ids(scan(from, limit).top, limit);
+        }
+        TopList top = tops.get(from);
+
+        if (top == null) {
+            Scan scan = scan(from, TOP_SIZE);
+            if (scan.matches <= CACHED_PREFIX_MIN_MATCHES) {
+                return ids(scan.top, limit);
+            }
+            // список строится заново под своей блокировкой, чтобы не пропустить изменения после перебора
+            top = tops.computeIfAbsent(from, key -> new TopList());
+        }
+
+        return top.get(from, limit);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    /**
+     * Перебрать все совпадения с префиксом и выбрать count лучших за O(m log count)
+     */
+    private Scan scan(String prefix, int count) {
+        PriorityQueue<Candidate> worstFirst = new PriorityQueue<>(BY_RANK.reversed());
+        Set<Integer> seen = new HashSet<>();
+
+        for (Map.Entry<String, Integer> entry : entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .entrySet()) {
+            // ключи идут по алфавиту, первый ключ записи — лучший
+            if (!seen.add(entry.getValue())) {
+                continue;
+            }
+            worstFirst.add(new Candidate(entry.getKey(), entry.getValue(), rank.applyAsInt(entry.getValue())));
+            if (worstFirst.size() > count) {
+                worstFirst.poll();
+            }
+        }
+        List<Candidate> top = new ArrayList<>(worstFirst);
+        top.sort(BY_RANK);
+
+        return new Scan(top, seen.size());
+    }
+
+    /**
+     * Пересчитать запись в списках всех префиксов ее старых и новых строк
+     */
+    private void updateTops(int id, String[] previous, String[] current) {
+        if (tops.isEmpty()) {
+            return;
+        }
+        Set<String> prefixes = new HashSet<>();
+
+        for (String[] values : List.of(previous, current)) {
+            for (String entry : values) {
+                String value = entry.substring(0, entry.lastIndexOf(SEPARATOR));
+                for (int length = 1; length <= value.length(); length++) {
+                    prefixes.add(value.substring(0, length));
+                }
+            }
+        }
+
+        for (String prefix : prefixes) {
+            TopList top = tops.get(prefix);
+            if (top != null) {
+                top.update(id, candidate(id, prefix));
+            }
+        }
+    }
+
+    /**
+     * Текущее состояние записи для префикса: ее первая по алфавиту подходящая строка и ранг
+     *
+     * @return возвращает null, если у записи нет строк с этим префиксом
+     */
+    private Candidate candidate(int id, String prefix) {
+        String best = null;
+
+        for (String entry : keys.getOrDefault(id, NO_KEYS)) {
+            if (entry.startsWith(prefix) && (best == null || entry.compareTo(best) < 0)) {
+                best = entry;
+            }
+        }
+
+        return best == null ? null : new Candidate(best, id, rank.applyAsInt(id));
+    }
+
+    private static int[] ids(Collection<Candidate> candidates, int limit) {
+        return candidates.stream().limit(limit).mapToInt(candidate -> candidate.id).toArray();
+    }
+
+    private static class Candidate {
+        private final String key;
+        private final int id;
+        private final int rank;
+
+        private Candidate(String key, int id, int rank) {
+            this.key = key;
+            this.id = id;
+            this.rank = rank;
+        }
+    }
+
+    private static class Scan {
+        private final List<Candidate> top;
+        // количество записей с префиксом
+        private final int matches;
+
+        private Scan(List<Candidate> top, int matches) {
+            this.top = top;
+            this.matches = matches;
+        }
+    }
+
+    /**
+     * Лучшие записи префикса. Первые depth записей списка совпадают с первыми depth записями среди всех
+     * совпадений: запись вне списка не может обогнать их, не попав при этом в список
+     */
+    private class TopList {
+        private final TreeSet<Candidate> ranked = new TreeSet<>(BY_RANK);
+        private final Map<Integer, Candidate> byId = new HashMap<>();
+        private int depth;
+
+        private synchronized int[] get(String prefix, int limit) {
+            if (limit > depth) {
+                List<Candidate> top = scan(prefix, TOP_SIZE).top;
+                ranked.clear();
+                byId.clear();
+                ranked.addAll(top);
+                top.forEach(candidate -> byId.put(candidate.id, candidate));
+                depth = TOP_SIZE;
+            }
+
+            return ids(ranked, limit);
+        }
+
+        /**
+         * @param current новое состояние записи или null, если запись больше не подходит под префикс
+         */
+        private synchronized void update(int id, Candidate current) {
+            Candidate previous = byId.remove(id);
+
+            if (previous != null) {
+                ranked.remove(previous);
+                // запись опустилась, ее место в пределах depth мог занять кто-то вне списка
+                if (current == null || BY_RANK.compare(current, previous) > 0) {
+                    depth--;
+                }
+            }
+
+            if (current != null) {
+                ranked.add(current);
+                byId.put(id, current);
+            }
+
+            while (ranked.size() > TOP_SIZE) {
+                byId.remove(ranked.pollLast().id);
+            }
+            depth = Math.min(depth, ranked.size());
+        }
+    }
+}
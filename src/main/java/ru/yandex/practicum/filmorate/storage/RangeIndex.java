@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.models.IdSet;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Упорядоченный индекс целого значения записи (дата выхода в днях, продолжительность): множество ключей
+ * «значение в старших 32 битах, id в младших», поэтому записи с значением из диапазона идут подряд
+ * и находятся за O(log n + k), где k — количество найденных записей.
+ * <p>
+ * Записи диапазона идут по значению, а не по id, поэтому страница по id из диапазона требует перебрать
+ * весь диапазон. Обход записей по id с проверкой значения требует в среднем limit · n / k шагов.
+ * Диапазон дешевле обхода, пока в нем не больше √(n · limit) записей (scanThreshold), так что в среднем
+ * страница стоит не больше O(√(n · limit)) в обоих случаях, а не O(k) или O(n).
+ */
+public class RangeIndex {
+    private final ConcurrentSkipListSet<Long> keys = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Integer, Integer> values = new ConcurrentHashMap<>();
+
+    /**
+     * Учесть новое или измененное значение записи
+     */
+    public void put(int id, int value) {
+        values.compute(id, (key, previous) -> {
+            // значение могло не измениться, поэтому сначала удаление
+            if (previous != null) {
+                keys.remove(key(previous, id));
+            }
+            keys.add(key(value, id));
+
+            return value;
+        });
+    }
+
+    public void remove(int id) {
+        values.computeIfPresent(id, (key, previous) -> {
+            keys.remove(key(previous, id));
+
+            return null;
+        });
+    }
+
+    /**
+     * Найти записи со значением из диапазона
+     *
+     * @param from нижняя граница, включительно
+     * @param to   верхняя граница, включительно
+     * @return возвращает id записей
+     */
+    public IdSet range(int from, int to) {
+        IdSet ids = new IdSet();
+
+        if (from > to) {
+            return ids;
+        }
+
+        for (long key : keys.subSet(key(from, 0), true, key(to, -1), true)) {
+            ids.add((int) key);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Посчитать записи со значением из диапазона, но не больше max
+     *
+     * @return возвращает количество записей или max, если их не меньше max
+     */
+    public int count(int from, int to, int max) {
+        int count = 0;
+
+        if (from > to) {
+            return count;
+        }
+
+        Iterator<Long> found = keys.subSet(key(from, 0), true, key(to, -1), true).iterator();
+
+        while (count < max && found.hasNext()) {
+            found.next();
+            count++;
+        }
+
+        return count;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Наибольший размер диапазона, при котором его перебор дешевле обхода записей по id
+     *
+     * @param size  количество записей
+     * @param limit размер страницы
+     */
+    public static int scanThreshold(int size, int limit) {
+        return (int) Math.sqrt((double) size * limit);
+    }
+
+    /**
+     * Ключ записи: значение в старших 32 битах, id без знака в младших
+     */
+    private static long key(int value, int id) {
+        return ((long) value << 32) | (id & 0xFFFFFFFFL);
+    }
+}
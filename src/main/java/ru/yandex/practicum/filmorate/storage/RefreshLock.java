@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Блокировка индекса, который поддерживается записями в базу и время от времени перечитывается из нее целиком.
+ * Изменения индекса идут под общей блокировкой, перечитывание — под исключительной, поэтому изменения во время
+ * перечитывания ждут его и попадают в новый снимок, а не теряются вместе со старым.
+ * <p>
+ * Изменение внутри транзакции выполняется после ее фиксации (AfterCommit), а блокировка берется сразу
+ * и держится до завершения транзакции. Поэтому перечитывание не попадает между фиксацией и изменением:
+ * иначе SELECT увидел бы запись, а изменение учло бы ее второй раз. Вызывать change нужно во время
+ * транзакции, а не из действия AfterCommit.
+ */
+class RefreshLock {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // ключ ресурса транзакции: блокировка уже взята этой транзакцией
+    private final Object transactionKey = new Object();
+
+    /**
+     * Выполнить изменение индекса
+     */
+    void change(Runnable change) {
+        if (!AfterCommit.isDeferred()) {
+            lock.readLock().lock();
+            try {
+                change.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.hasResource(transactionKey)) {
+            lock.readLock().lock();
+            TransactionSynchronizationManager.bindResource(transactionKey, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+                    lock.readLock().unlock();
+                }
+            });
+        }
+        AfterCommit.run(change);
+    }
+
+    /**
+     * Перечитать индекс, изменения ждут окончания
+     */
+    <T> T refresh(Supplier<T> refresh) {
+        lock.writeLock().lock();
+        try {
+            return refresh.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -2,17 +2,22 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
-import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
 import ru.yandex.practicum.filmorate.exceptions.UserAlreadyExistException;
 import ru.yandex.practicum.filmorate.exceptions.UserNotFoundException;
+import ru.yandex.practicum.filmorate.models.IdSet;
 import ru.yandex.practicum.filmorate.models.User;
 import ru.yandex.practicum.filmorate.validators.UserValidator;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -21,47 +26,56 @@ import java.util.*;
 @Slf4j
 @Component("userDBStorage")
 public class UserDBStorage implements UserStorage {
+    private static final String SQL_QUERY_FOR_ADD = "INSERT INTO users (email, login, name, birthday) " +
+            "VALUES (?, ?, ?, ?);";
     private static final String SQL_QUERY_FOR_DELETE_BY_ID = "DELETE FROM users WHERE user_id = ?";
-    private static final String SQL_QUERY_FOR_UPDATE = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ?" +
-            "WHERE user_id = ?;";
+    private static final String SQL_QUERY_FOR_UPDATE = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ?, " +
+            "version = version + 1 WHERE user_id = ?;";
+    private static final String SQL_QUERY_FOR_BUMP_VERSIONS = "UPDATE users SET version = version + 1 " +
+            "WHERE user_id IN (?, ?);";
     private static final String SQL_QUERY_FOR_GET_ALL = "SELECT * FROM users;";
+    private static final String SQL_QUERY_FOR_GET_PAGE = "SELECT * FROM users WHERE user_id > ? " +
+            "ORDER BY user_id LIMIT ?;";
     private static final String SQL_QUERY_FOR_FIND_BY_ID = "SELECT * FROM users WHERE user_id = ?;";
+    private static final String SQL_QUERY_FOR_FIND_BY_EMAIL = "SELECT * FROM users WHERE email = ?;";
+    private static final String SQL_QUERY_FOR_FIND_BY_LOGIN = "SELECT * FROM users WHERE login = ?;";
     private static final String SQL_QUERY_FOR_ADD_FRIEND = "INSERT INTO friendship (user_id, friend_id) VALUES (?, ?);";
     private static final String SQL_QUERY_FOR_CONFIRM_FRIENDSHIP = "UPDATE friendship SET accept = TRUE " +
             "WHERE user_id = ? AND friend_id = ?;";
     private static final String SQL_QUERY_FOR_DELETE_FRIEND_TO_THE_USER = "DELETE FROM friendship " +
             "WHERE user_id = ? AND friend_id = ?;";
-    private static final String SQL_QUERY_GET_COMMON_FRIENDS = "SELECT * FROM (SELECT u.user_id, u.email, u.login, " +
-            "u.name, u.birthday FROM friendship AS f INNER JOIN users AS u ON u.user_id = f.friend_id " +
-            "WHERE f.user_id = ? UNION SELECT u.user_id, u.email, u.login, u.name, u.birthday FROM friendship AS f " +
-            "INNER JOIN users AS u ON u.user_id = f.user_id WHERE f.friend_id = ? AND f.accept = true) AS t1 " +
-            "INTERSECT SELECT * FROM (SELECT u.user_id, u.email, u.login, u.name, u.birthday FROM friendship AS f " +
-            "INNER JOIN users AS u ON u.user_id = f.friend_id WHERE f.user_id = ? " +
-            "UNION SELECT u.user_id, u.email, u.login, u.name, u.birthday FROM friendship AS f " +
-            "INNER JOIN users AS u ON u.user_id = f.user_id WHERE f.friend_id = ? AND f.accept = true) AS t2";
-    private static final String SQL_QUERY_FOR_GET_ALL_USERS_FRIENDS_BY_ID = "SELECT u.user_id, u.email, u.login, " +
-            "u.name,u.birthday FROM friendship AS f INNER JOIN users AS u ON u.user_id = f.friend_id " +
-            "WHERE f.user_id = ?  UNION SELECT u.user_id, u.email, u.login, u.name, u.birthday FROM friendship AS f " +
-            "INNER JOIN users AS u ON u.user_id = f.user_id WHERE f.friend_id = ? AND f.accept = true;";
-    private static final String SQL_QUERY_FOR_GET_USERS_FRIENDS_IDS = "SELECT u.user_id FROM friendship AS f " +
-            "INNER JOIN users AS u ON u.user_id = f.friend_id WHERE f.user_id = ? AND f.accept = true " +
-            "UNION SELECT u.user_id FROM friendship AS f INNER JOIN users AS u ON u.user_id = f.user_id " +
-            "WHERE f.friend_id = ? AND f.accept = true;";
+    private static final String SQL_QUERY_FOR_GET_BY_IDS = "SELECT * FROM users WHERE user_id = ANY(?) " +
+            "ORDER BY user_id;";
+    private static final String SQL_QUERY_FOR_GET_FRIENDS_IDS_BY_USER_IDS = "SELECT user_id AS owner_id, " +
+            "friend_id AS friend_id FROM friendship WHERE user_id = ANY(?) AND accept = true " +
+            "UNION ALL SELECT friend_id, user_id FROM friendship WHERE friend_id = ANY(?) AND accept = true;";
 
     private final JdbcTemplate jdbcTemplate;
+    private final FriendshipIndex friendshipIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final SimpleJdbcInsert userInsert;
+    private final int importBatchSize;
 
     @Autowired
-    public UserDBStorage(JdbcTemplate jdbcTemplate) {
+    public UserDBStorage(
+            JdbcTemplate jdbcTemplate,
+            FriendshipIndex friendshipIndex,
+            AutocompleteIndex autocompleteIndex,
+            @Value("${filmorate.import.batch-size}") int importBatchSize
+    ) {
         this.jdbcTemplate = jdbcTemplate;
+        this.friendshipIndex = friendshipIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.importBatchSize = importBatchSize;
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("user_id");
     }
 
     @Override
     public User add(User user) {
         UserValidator.validate(user);
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("users")
-                .usingGeneratedKeyColumns("user_id");
-
         Map<String, Object> values = new HashMap<>();
         values.put("login", user.getLogin());
         values.put("name", user.getName());
@@ -69,8 +83,9 @@ public class UserDBStorage implements UserStorage {
         values.put("birthday", user.getBirthday());
 
         try {
-            int user_id = simpleJdbcInsert.executeAndReturnKey(values).intValue();
+            int user_id = userInsert.executeAndReturnKey(values).intValue();
             user.setId(user_id);
+            AfterCommit.run(() -> autocompleteIndex.users().put(user.getId(), user.getLogin(), user.getName()));
             log.info("User id:{} added", user.getId());
 
             return user;
@@ -80,9 +95,75 @@ public class UserDBStorage implements UserStorage {
             } else if (e.toString().contains("USERS(LOGIN)")) {
                 throw new UserAlreadyExistException("User with login:" + user.getLogin() + " already exist");
             } else {
-                throw new UnsupportedOperationException(e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Все пользователи вставляются одним подготовленным запросом, executeBatch вызывается каждые
+     * filmorate.import.batch-size пользователей
+     */
+    @Override
+    @Transactional
+    public List<User> addAll(List<User> users) {
+        UserValidator.validateAll(users);
+        Set<String> emails = new HashSet<>();
+        Set<String> logins = new HashSet<>();
+
+        for (User user : users) {
+            if (!emails.add(user.getEmail())) {
+                throw new UserAlreadyExistException("User with email:" + user.getEmail() + " already exist");
+            }
+
+            if (!logins.add(user.getLogin())) {
+                throw new UserAlreadyExistException("User with login:" + user.getLogin() + " already exist");
+            }
+        }
+
+        try {
+            jdbcTemplate.execute(
+                    (PreparedStatementCreator) con -> con.prepareStatement(SQL_QUERY_FOR_ADD, new String[]{"user_id"}),
+                    (PreparedStatement ps) -> {
+                        for (int from = 0; from < users.size(); from += importBatchSize) {
+                            List<User> batch = users.subList(from, Math.min(from + importBatchSize, users.size()));
+
+                            for (User user : batch) {
+                                ps.setString(1, user.getEmail());
+                                ps.setString(2, user.getLogin());
+                                ps.setString(3, user.getName());
+                                ps.setObject(4, user.getBirthday());
+                                ps.addBatch();
+                            }
+                            ps.executeBatch();
+
+                            try (ResultSet keys = ps.getGeneratedKeys()) {
+                                for (User user : batch) {
+                                    keys.next();
+                                    user.setId(keys.getInt(1));
+                                }
+                            }
+                        }
+
+                        return null;
+                    });
+        } catch (DuplicateKeyException e) {
+            if (e.toString().contains("USERS(EMAIL)")) {
+                throw new UserAlreadyExistException("User with one of the emails already exist");
+            } else if (e.toString().contains("USERS(LOGIN)")) {
+                throw new UserAlreadyExistException("User with one of the logins already exist");
+            } else {
+                throw e;
             }
         }
+        AfterCommit.run(() -> {
+            for (User user : users) {
+                autocompleteIndex.users().put(user.getId(), user.getLogin(), user.getName());
+            }
+        });
+        log.info("{} users added", users.size());
+
+        return users;
     }
 
     @Override
@@ -92,6 +173,8 @@ public class UserDBStorage implements UserStorage {
         if (deleteResult == 0) {
             throw new UserNotFoundException("User with:" + id + " not found");
         }
+        friendshipIndex.removeUser(id);
+        AfterCommit.run(() -> autocompleteIndex.users().remove(id));
         log.info("User with id:{} deleted", id);
         return user;
     }
@@ -111,6 +194,7 @@ public class UserDBStorage implements UserStorage {
         if (updateResult == 0) {
             throw new UserNotFoundException("User with:" + user.getId() + " not found");
         }
+        AfterCommit.run(() -> autocompleteIndex.users().put(user.getId(), user.getLogin(), user.getName()));
         log.info("User with id:{} updated", user.getId());
 
         return user;
@@ -118,26 +202,83 @@ public class UserDBStorage implements UserStorage {
 
     @Override
     public Collection<User> getAll() {
-        return jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL, this::mapRowToUser);
+        return getAll(true);
+    }
+
+    @Override
+    public Collection<User> getAll(boolean withFriendsIds) {
+        return loadFriendsIds(jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL, this::mapRowToUser), withFriendsIds);
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        return getPage(afterId, limit, true);
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit, boolean withFriendsIds) {
+        return loadFriendsIds(
+                jdbcTemplate.query(SQL_QUERY_FOR_GET_PAGE, this::mapRowToUser, afterId, limit),
+                withFriendsIds
+        );
     }
 
     @Override
     public User findById(int id) {
-        try {
-            User user = jdbcTemplate.queryForObject(SQL_QUERY_FOR_FIND_BY_ID, this::mapRowToUser, id);
-            log.info("User with id:{} found", id);
+        List<User> users = jdbcTemplate.query(SQL_QUERY_FOR_FIND_BY_ID, this::mapRowToUser, id);
 
-            return user;
-        } catch (IncorrectResultSizeDataAccessException e) {
+        if (users.isEmpty()) {
             throw new UserNotFoundException("User with id:" + id + " not found");
         }
+        log.info("User with id:{} found", id);
 
+        return loadFriendsIds(users, true).get(0);
     }
 
+    /**
+     * Поиск идет по индексу уникального ограничения на email
+     */
     @Override
+    public User findByEmail(String email) {
+        List<User> users = jdbcTemplate.query(SQL_QUERY_FOR_FIND_BY_EMAIL, this::mapRowToUser, email);
+
+        if (users.isEmpty()) {
+            throw new UserNotFoundException("User with email:" + email + " not found");
+        }
+
+        return loadFriendsIds(users, true).get(0);
+    }
+
+    /**
+     * Поиск идет по индексу уникального ограничения на login
+     */
+    @Override
+    public User findByLogin(String login) {
+        List<User> users = jdbcTemplate.query(SQL_QUERY_FOR_FIND_BY_LOGIN, this::mapRowToUser, login);
+
+        if (users.isEmpty()) {
+            throw new UserNotFoundException("User with login:" + login + " not found");
+        }
+
+        return loadFriendsIds(users, true).get(0);
+    }
+
+    /**
+     * Изменение дружбы увеличивает version обоих пользователей: у обоих меняется список друзей
+     *
+     * @throws IncorrectParameterException если пользователь добавляет в друзья сам себя
+     */
+    @Override
+    @Transactional
     public User addFriend(int userId, int friendId) {
+        if (userId == friendId) {
+            throw new IncorrectParameterException("friendId");
+        }
+
         try {
             jdbcTemplate.update(SQL_QUERY_FOR_ADD_FRIEND, userId, friendId);
+            jdbcTemplate.update(SQL_QUERY_FOR_BUMP_VERSIONS, userId, friendId);
+            friendshipIndex.addFriendship(userId, friendId);
 
             return findById(userId);
         } catch (DataIntegrityViolationException e) {
@@ -153,31 +294,107 @@ public class UserDBStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public User confirmFriendship(int userId, int requestingUser) {
-        jdbcTemplate.update(SQL_QUERY_FOR_CONFIRM_FRIENDSHIP, requestingUser, userId);
+        if (jdbcTemplate.update(SQL_QUERY_FOR_CONFIRM_FRIENDSHIP, requestingUser, userId) > 0) {
+            jdbcTemplate.update(SQL_QUERY_FOR_BUMP_VERSIONS, userId, requestingUser);
+            friendshipIndex.acceptFriendship(requestingUser, userId);
+        }
 
         return findById(userId);
     }
 
     @Override
+    @Transactional
     public User deleteFriendToTheUser(int userId, int friendId) {
-        jdbcTemplate.update(SQL_QUERY_FOR_DELETE_FRIEND_TO_THE_USER, userId, friendId);
+        if (jdbcTemplate.update(SQL_QUERY_FOR_DELETE_FRIEND_TO_THE_USER, userId, friendId) > 0) {
+            jdbcTemplate.update(SQL_QUERY_FOR_BUMP_VERSIONS, userId, friendId);
+            friendshipIndex.removeFriendship(userId, friendId);
+        }
 
         return findById(userId);
     }
 
     @Override
     public Set<User> getCommonFriends(int userId, int friendId) {
-        List<User> queryResult = jdbcTemplate.query(SQL_QUERY_GET_COMMON_FRIENDS, this::mapRowToUser, userId, userId, friendId, friendId);
+        return getCommonFriends(userId, friendId, true);
+    }
 
-        return Set.copyOf(queryResult);
+    @Override
+    public Set<User> getCommonFriends(int userId, int friendId, boolean withFriendsIds) {
+        return Set.copyOf(findByIds(friendshipIndex.getCommonFriends(userId, friendId), withFriendsIds));
     }
 
     @Override
     public List<User> getAllUsersFriendsById(int id) {
-        return jdbcTemplate.query(SQL_QUERY_FOR_GET_ALL_USERS_FRIENDS_BY_ID, this::mapRowToUser, id, id);
+        return getAllUsersFriendsById(id, true);
     }
 
+    @Override
+    public List<User> getAllUsersFriendsById(int id, boolean withFriendsIds) {
+        return findByIds(friendshipIndex.getFriends(id), withFriendsIds);
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(int id, int limit, boolean withFriendsIds) {
+        int[] ids = friendshipIndex.suggestFriends(id, limit);
+        Map<Integer, User> usersById = new HashMap<>();
+        findByIds(ids, withFriendsIds).forEach(user -> usersById.put(user.getId(), user));
+        List<User> suggestions = new ArrayList<>(ids.length);
+
+        for (int suggestedId : ids) {
+            // пользователь мог быть удален после подсчета
+            User user = usersById.get(suggestedId);
+            if (user != null) {
+                suggestions.add(user);
+            }
+        }
+
+        return suggestions;
+    }
+
+    /**
+     * id берутся из AutocompleteIndex, пользователи загружаются одним запросом
+     */
+    @Override
+    public List<User> autocomplete(String prefix, int limit, boolean withFriendsIds) {
+        int[] ids = autocompleteIndex.users().complete(prefix, limit);
+        Map<Integer, User> usersById = new HashMap<>();
+        findByIds(ids, withFriendsIds).forEach(user -> usersById.put(user.getId(), user));
+        List<User> found = new ArrayList<>(ids.length);
+
+        for (int foundId : ids) {
+            User user = usersById.get(foundId);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Загрузить пользователей по id одним запросом
+     *
+     * @param ids            id пользователей
+     * @param withFriendsIds загружать ли friendsId пользователей
+     * @return возвращает найденных пользователей в порядке возрастания id
+     */
+    private List<User> findByIds(int[] ids, boolean withFriendsIds) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+
+        return loadFriendsIds(
+                jdbcTemplate.query(SQL_QUERY_FOR_GET_BY_IDS, this::mapRowToUser,
+                        (Object) Arrays.stream(ids).boxed().toArray(Integer[]::new)),
+                withFriendsIds
+        );
+    }
+
+    /**
+     * friendsId заполняется отдельно в loadFriendsIds
+     */
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         return User.builder()
                 .id(rs.getInt("user_id"))
@@ -185,11 +402,32 @@ public class UserDBStorage implements UserStorage {
                 .login(rs.getString("login"))
                 .name(rs.getString("name"))
                 .birthday(LocalDate.parse(rs.getString("birthday")))
-                .friendsId(Set.copyOf(getUserFriendsIds(rs.getInt("user_id"))))
                 .build();
     }
 
-    private Collection<Integer> getUserFriendsIds(int id) {
-        return jdbcTemplate.query(SQL_QUERY_FOR_GET_USERS_FRIENDS_IDS, (ResultSet rs, int num) -> rs.getInt("user_id"), id, id);
+    /**
+     * Загрузить id подтвержденных друзей сразу для всех переданных пользователей одним запросом
+     *
+     * @param users          пользователи без friendsId
+     * @param withFriendsIds если false, запрос не выполняется и friendsId остаются пустыми
+     * @return тех же пользователей
+     */
+    private List<User> loadFriendsIds(List<User> users, boolean withFriendsIds) {
+        if (!withFriendsIds || users.isEmpty()) {
+            return users;
+        }
+
+        Integer[] userIds = users.stream().map(User::getId).toArray(Integer[]::new);
+        Map<Integer, IdSet> friendsIds = new HashMap<>();
+
+        jdbcTemplate.query(SQL_QUERY_FOR_GET_FRIENDS_IDS_BY_USER_IDS, (ResultSet rs) -> {
+            friendsIds.computeIfAbsent(rs.getInt("owner_id"), id -> new IdSet()).add(rs.getInt("friend_id"));
+        }, userIds, userIds);
+
+        for (User user : users) {
+            user.setFriendsId(friendsIds.getOrDefault(user.getId(), new IdSet()));
+        }
+
+        return users;
     }
 }
@@ -20,6 +20,16 @@ public interface UserStorage {
      */
     User add(User user) throws UserAlreadyExistException, ValidationException;
 
+    /**
+     * Добавить пачку пользователей одной транзакцией
+     *
+     * @param users
+     * @return возвращает добавленных пользователей с присвоенными id в порядке переданного списка
+     * @throws UserAlreadyExistException если email или login уже заняты, ничего не добавляется
+     * @throws ValidationException       если хотя бы один пользователь не прошел валидацию, ничего не добавляется
+     */
+    List<User> addAll(List<User> users) throws UserAlreadyExistException, ValidationException;
+
     /**
      * Удалить по id
      *
@@ -46,6 +56,37 @@ public interface UserStorage {
      */
     Collection<User> getAll();
 
+    /**
+     * Получить все
+     *
+     * @param withFriendsIds загружать ли friendsId пользователей
+     * @return возвращает всех пользователей из хранилища
+     */
+    default Collection<User> getAll(boolean withFriendsIds) {
+        return getAll();
+    }
+
+    /**
+     * Получить страницу пользователей, отсортированных по id
+     *
+     * @param afterId id последнего пользователя предыдущей страницы, 0 для первой страницы
+     * @param limit   максимальное количество пользователей на странице
+     * @return возвращает не больше limit пользователей с id больше afterId
+     */
+    List<User> getPage(int afterId, int limit);
+
+    /**
+     * Получить страницу пользователей, отсортированных по id
+     *
+     * @param afterId        id последнего пользователя предыдущей страницы, 0 для первой страницы
+     * @param limit          максимальное количество пользователей на странице
+     * @param withFriendsIds загружать ли friendsId пользователей
+     * @return возвращает не больше limit пользователей с id больше afterId
+     */
+    default List<User> getPage(int afterId, int limit, boolean withFriendsIds) {
+        return getPage(afterId, limit);
+    }
+
     /**
      * Найти по id
      *
@@ -55,6 +96,24 @@ public interface UserStorage {
      */
     User findById(int id) throws UserNotFoundException;
 
+    /**
+     * Найти по email
+     *
+     * @param email
+     * @return возвращает пользователя с переданным email
+     * @throws UserNotFoundException если пользователя с переданным email нет в хранилище
+     */
+    User findByEmail(String email) throws UserNotFoundException;
+
+    /**
+     * Найти по логину
+     *
+     * @param login
+     * @return возвращает пользователя с переданным логином
+     * @throws UserNotFoundException если пользователя с переданным логином нет в хранилище
+     */
+    User findByLogin(String login) throws UserNotFoundException;
+
     /**
      * Добавить нового друга пользователю
      *
@@ -89,6 +148,18 @@ public interface UserStorage {
      */
     Set<User> getCommonFriends(int userId, int friendId);
 
+    /**
+     * Получить общих друзей
+     *
+     * @param userId         id пользователя
+     * @param friendId       id друга
+     * @param withFriendsIds загружать ли friendsId найденных друзей
+     * @return возвращает набор общих друзей
+     */
+    default Set<User> getCommonFriends(int userId, int friendId, boolean withFriendsIds) {
+        return getCommonFriends(userId, friendId);
+    }
+
     /**
      * Получить всех друзей пользователя
      *
@@ -96,4 +167,35 @@ public interface UserStorage {
      * @return возвращает список друзей пользователя
      */
     List<User> getAllUsersFriendsById(int id);
+
+    /**
+     * Получить всех друзей пользователя
+     *
+     * @param id
+     * @param withFriendsIds загружать ли friendsId найденных друзей
+     * @return возвращает список друзей пользователя
+     */
+    default List<User> getAllUsersFriendsById(int id, boolean withFriendsIds) {
+        return getAllUsersFriendsById(id);
+    }
+
+    /**
+     * Получить возможных друзей: друзей друзей пользователя, которые еще не в его друзьях
+     *
+     * @param id
+     * @param limit          максимальное количество пользователей
+     * @param withFriendsIds загружать ли friendsId найденных пользователей
+     * @return возвращает список пользователей по убыванию количества общих друзей с пользователем
+     */
+    List<User> getFriendSuggestions(int id, int limit, boolean withFriendsIds);
+
+    /**
+     * Подсказать пользователей по началу логина или имени
+     *
+     * @param prefix         начало логина или имени
+     * @param limit          максимальное количество пользователей
+     * @param withFriendsIds загружать ли friendsId найденных пользователей
+     * @return возвращает список пользователей по алфавиту
+     */
+    List<User> autocomplete(String prefix, int limit, boolean withFriendsIds);
 }
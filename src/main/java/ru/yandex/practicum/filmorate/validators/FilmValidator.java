@@ -4,6 +4,7 @@ import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.models.Film;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public class FilmValidator {
     private final static LocalDate MIN_RELEASE_DATE = LocalDate.parse("1895-12-28");
@@ -25,4 +26,17 @@ public class FilmValidator {
             throw new ValidationException("duration", "должна быть положительной");
         }
     }
+
+    /**
+     * Проверить все объекты пачки, в поле ошибки добавляется индекс объекта: [3].name
+     */
+    public static void validateAll(List<Film> films) throws ValidationException {
+        for (int i = 0; i < films.size(); i++) {
+            try {
+                validate(films.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException("[" + i + "]." + e.getField(), e.getMessage());
+            }
+        }
+    }
 }
@@ -4,6 +4,7 @@ import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.models.User;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public class UserValidator {
     public static void validate(User user) throws ValidationException {
@@ -23,4 +24,17 @@ public class UserValidator {
             throw new ValidationException("birthday", "не может быть в будущем");
         }
     }
+
+    /**
+     * Проверить все объекты пачки, в поле ошибки добавляется индекс объекта: [3].name
+     */
+    public static void validateAll(List<User> users) throws ValidationException {
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                validate(users.get(i));
+            } catch (ValidationException e) {
+                throw new ValidationException("[" + i + "]." + e.getField(), e.getMessage());
+            }
+        }
+    }
 }
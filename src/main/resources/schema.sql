@@ -4,6 +4,7 @@ CREATE TABLE IF NOT EXISTS users (
     login varchar(255) NOT NULL UNIQUE,
     name varchar(255) NOT NULL,
     birthday date NOT NULL,
+    version bigint NOT NULL DEFAULT 0,
     CONSTRAINT pk_users PRIMARY KEY (
         user_id
      )
@@ -16,11 +17,25 @@ CREATE TABLE IF NOT EXISTS films (
     release_date date NOT NULL,
     duration int NOT NULL,
     description varchar(200) NOT NULL,
+    like_count int NOT NULL DEFAULT 0,
+    version bigint NOT NULL DEFAULT 0,
     CONSTRAINT pk_films PRIMARY KEY (
         film_id
      )
 );
 
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count int NOT NULL DEFAULT 0;
+
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films (like_count DESC, film_id);
+
+CREATE INDEX IF NOT EXISTS idx_films_release_date ON films (release_date);
+
+CREATE INDEX IF NOT EXISTS idx_films_duration ON films (duration, film_id);
+
 CREATE TABLE IF NOT EXISTS mpa (
     mpa_id int NOT NULL,
     mpa_name varchar(255) NOT NULL,
@@ -82,3 +97,5 @@ REFERENCES films (film_id);
 
 ALTER TABLE film_genre ADD CONSTRAINT IF NOT EXISTS fk_film_genre_genre_id FOREIGN KEY(genre_id)
 REFERENCES genre (genre_id);
+
+CREATE INDEX IF NOT EXISTS idx_film_genre_genre_id ON film_genre (genre_id, film_id);
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void shouldBeNotModifiedUntilFilmLiked() throws Exception {
+        Film film = filmService.addFilm(newFilm());
+        User user = userService.addUser(newUser("liker"));
+        String url = "/films/" + film.getId();
+        String etag = getEtag(url);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        filmService.addLikeToFilm(film.getId(), user.getId());
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertNotEquals(etag, getEtag(url));
+    }
+
+    @Test
+    public void shouldBeChangePopularFilmsEtagOnLike() throws Exception {
+        Film film = filmService.addFilm(newFilm());
+        User user = userService.addUser(newUser("popular"));
+        String url = "/films/popular?count=1000";
+        String etag = getEtag(url);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        filmService.addLikeToFilm(film.getId(), user.getId());
+
+        assertNotEquals(etag, getEtag(url));
+    }
+
+    @Test
+    public void shouldBeChangeFriendsEtagOnFriendshipAndFriendUpdate() throws Exception {
+        User user = userService.addUser(newUser("owner"));
+        User friend = userService.addUser(newUser("friend"));
+        String url = "/users/" + user.getId() + "/friends";
+        String emptyEtag = getEtag(url);
+
+        userService.addNewFriendToTheUser(user.getId(), friend.getId());
+        String etag = getEtag(url);
+
+        assertNotEquals(emptyEtag, etag);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        friend.setName("Новое имя");
+        userService.updateUser(friend);
+
+        assertNotEquals(etag, getEtag(url));
+    }
+
+    private String getEtag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+
+        return etag;
+    }
+
+    private static Film newFilm() {
+        return Film.builder()
+                .name("Звёздный путь")
+                .description("Description")
+                .releaseDate(LocalDate.parse("1967-03-25"))
+                .duration(100)
+                .mpa(FilmMPA.builder().id(1).build())
+                .build();
+    }
+
+    private static User newUser(String login) {
+        String unique = login + System.nanoTime();
+
+        return User.builder()
+                .name("Ладимир")
+                .email(unique + "@mail.xyz")
+                .birthday(LocalDate.parse("1973-06-12"))
+                .login(unique)
+                .build();
+    }
+}
@@ -5,13 +5,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exceptions.*;
 import ru.yandex.practicum.filmorate.models.Film;
 import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.models.LikeResult;
 import ru.yandex.practicum.filmorate.models.User;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -245,7 +255,229 @@ class FilmControllerTest {
         filmController.addLikeToFilm(film3.getId(), user3.getId());
 
         List<Film> checklist = List.of(film3, film2);
-        List<Film> filmControllerResult = filmController.getPopularFilms(2);
+        List<Film> filmControllerResult = filmController.getPopularFilms(2, null, null, newRequest());
         assertEquals(filmControllerResult, checklist);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBeGetFilmsPageAfterCursor() {
+        Film film1 = filmController.addFilm(Film.builder()
+                .name("PageFilm1")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+        Film film2 = filmController.addFilm(Film.builder()
+                .name("PageFilm2")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+        Film film3 = filmController.addFilm(Film.builder()
+                .name("PageFilm3")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+
+        assertEquals(List.of(film2, film3), filmController.findAll(film1.getId(), 2, null, null, null, null));
+        assertEquals(List.of(film3), filmController.findAll(film2.getId(), 10, null, null, null, null));
+        assertTrue(filmController.findAll(film3.getId(), null, null, null, null, null).isEmpty());
+    }
+
+    @Test
+    public void shouldBeGetFilmsPageInReleaseDateAndDurationRange() {
+        Film short1901 = filmController.addFilm(Film.builder()
+                .name("RangeFilm1")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("1901-03-01"))
+                .duration(40)
+                .build());
+        Film long1901 = filmController.addFilm(Film.builder()
+                .name("RangeFilm2")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("1901-06-01"))
+                .duration(400)
+                .build());
+        Film long1902 = filmController.addFilm(Film.builder()
+                .name("RangeFilm3")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("1902-01-01"))
+                .duration(401)
+                .build());
+        LocalDate from = LocalDate.parse("1901-01-01");
+        LocalDate to = LocalDate.parse("1901-12-31");
+
+        assertEquals(List.of(short1901, long1901), filmController.findAll(null, null, from, to, null, null));
+        assertEquals(List.of(long1901), filmController.findAll(short1901.getId(), null, from, to, null, null));
+        assertEquals(List.of(long1901, long1902), filmController.findAll(null, null, from, null, 400, 401));
+        assertEquals(List.of(long1901), filmController.findAll(null, 1, from, null, 400, null));
+        assertThrows(IncorrectParameterException.class, () -> filmController.findAll(null, null, to, from, null, null));
+        assertThrows(IncorrectParameterException.class,
+                () -> filmController.findAll(null, null, null, null, 100, 10));
+    }
+
+    @Test
+    public void shouldBeIncorrectParameterExceptionWithPageLimitOutOfRange() {
+        assertThrows(IncorrectParameterException.class, () -> filmController.findAll(0, 0, null, null, null, null));
+        assertThrows(IncorrectParameterException.class, () -> filmController.findAll(0, 1_000_000, null, null, null, null));
+    }
+
+    @Test
+    public void shouldBeSearchFilmsByNameBeforeDescription() {
+        Film byDescription = filmController.addFilm(Film.builder()
+                .name("SearchFilmOne")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Команда корабля отправляется к далёким звёздам")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+        Film byName = filmController.addFilm(Film.builder()
+                .name("Звёзды над морем")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("SearchFilmTwo")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+
+        List<Film> found = filmController.searchFilms("звезда", 100);
+
+        assertTrue(found.indexOf(byName) >= 0);
+        assertTrue(found.indexOf(byName) < found.indexOf(byDescription));
+        assertThrows(IncorrectParameterException.class, () -> filmController.searchFilms(" ", 10));
+        assertThrows(IncorrectParameterException.class, () -> filmController.searchFilms("звезда", 0));
+    }
+
+    @Test
+    public void shouldBeAutocompleteFilmsByNameRankedByLikes() {
+        Film first = filmController.addFilm(Film.builder()
+                .name("Автодополнение: первый")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+        Film second = filmController.addFilm(Film.builder()
+                .name("Автодополнение: второй")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+        User user = userController.addUser(User.builder()
+                .email("autocompleteFilm@mail.ru")
+                .login("autocompleteFilm")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build());
+        filmController.addLikeToFilm(first.getId(), user.getId());
+
+        assertEquals(List.of(first.getId(), second.getId()), filmController.autocomplete("автодоп", 10).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList()));
+        assertEquals(1, filmController.autocomplete("автодополнение: в", 10).size());
+        assertThrows(IncorrectParameterException.class, () -> filmController.autocomplete("", 10));
+    }
+
+    @Test
+    public void shouldBeStreamAllFilmsAsNdjson() throws IOException {
+        filmController.addFilm(Film.builder()
+                .name("StreamFilm")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        filmController.streamAll().getBody().writeTo(outputStream);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(filmController.findAll(null, null, null, null, null, null).size(), lines.length);
+        assertTrue(lines[lines.length - 1].contains("\"name\":\"StreamFilm\""));
+    }
+
+    @Test
+    public void shouldBeAddLikesBatchFromNdjsonStream() throws IOException {
+        Film film = filmController.addFilm(Film.builder()
+                .name("BatchLikesFilm")
+                .mpa(FilmMPA.builder().id(1).build())
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .duration(99)
+                .build());
+        User user = userController.addUser(User.builder()
+                .email("batchLikes@mail.ru")
+                .login("batchLikes")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build());
+        String body = "{\"filmId\":" + film.getId() + ",\"userId\":" + user.getId() + "}\n" +
+                "{\"filmId\":" + film.getId() + ",\"userId\":" + user.getId() + "}\n";
+
+        List<LikeResult> results = filmController.addLikes(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(LikeResult.Status.ADDED, results.get(0).getStatus());
+        assertEquals(LikeResult.Status.ALREADY_EXISTS, results.get(1).getStatus());
+        assertEquals(1, filmController.findFilmById(film.getId(), newRequest()).getLikeCount());
+    }
+
+    @Test
+    public void shouldBeAddFilmsBatchWithIdsInOrder() {
+        List<Film> films = filmController.addFilms(List.of(
+                Film.builder()
+                        .name("BatchFilm1")
+                        .mpa(FilmMPA.builder().id(1).build())
+                        .description("Description")
+                        .releaseDate(LocalDate.parse("2021-01-01"))
+                        .duration(99)
+                        .build(),
+                Film.builder()
+                        .name("BatchFilm2")
+                        .mpa(FilmMPA.builder().id(2).build())
+                        .description("Description")
+                        .releaseDate(LocalDate.parse("2021-01-01"))
+                        .duration(99)
+                        .build()
+        ));
+
+        assertEquals(films.get(0).getId() + 1, films.get(1).getId());
+        assertEquals("BatchFilm2", filmController.findFilmById(films.get(1).getId(), newRequest()).getName());
+        assertEquals(2, filmController.findFilmById(films.get(1).getId(), newRequest()).getMpa().getId());
+    }
+
+    @Test
+    public void shouldBeValidationExceptionWithItemIndexByAddFilmsBatch() {
+        int filmsCount = filmController.findAll(null, null, null, null, null, null).size();
+        List<Film> films = List.of(
+                Film.builder()
+                        .name("BatchFilm3")
+                        .mpa(FilmMPA.builder().id(1).build())
+                        .description("Description")
+                        .releaseDate(LocalDate.parse("2021-01-01"))
+                        .duration(99)
+                        .build(),
+                Film.builder()
+                        .name("BatchFilm4")
+                        .mpa(FilmMPA.builder().id(1).build())
+                        .description("Description")
+                        .releaseDate(LocalDate.parse("2021-01-01"))
+                        .duration(-1)
+                        .build()
+        );
+
+        ValidationException e = assertThrows(ValidationException.class, () -> filmController.addFilms(films));
+
+        assertEquals("[1].duration", e.getField());
+        assertEquals(filmsCount, filmController.findAll(null, null, null, null, null, null).size());
+    }
+
+    private static WebRequest newRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+}
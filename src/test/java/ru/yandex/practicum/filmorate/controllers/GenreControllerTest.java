@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.exceptions.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.models.Genre;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class GenreControllerTest {
+    @Autowired
+    private GenreController genreController;
+    @Autowired
+    private AdminController adminController;
+
+    @Test
+    public void shouldBeGetAllGenresWithCacheControlHeader() {
+        ResponseEntity<List<Genre>> response = genreController.findAll();
+
+        assertEquals(6, response.getBody().size());
+        assertEquals("Комедия", response.getBody().get(0).getName());
+        assertEquals("max-age=86400, public", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void shouldBeGenreNotFoundExceptionWithUnknownId() {
+        assertThrows(GenreNotFoundException.class, () -> genreController.findGenreById(-1));
+    }
+
+    @Test
+    public void shouldBeReloadGenresOnRefresh() {
+        Genre before = genreController.findGenreById(2).getBody();
+
+        assertEquals(6, adminController.refreshDictionaries().get("genres"));
+        assertEquals(before, genreController.findGenreById(2).getBody());
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
+import ru.yandex.practicum.filmorate.exceptions.MpaNotFoundException;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class MpaControllerTest {
+    @Autowired
+    private MpaController mpaController;
+
+    @Test
+    public void shouldBeGetAllMpaWithCacheControlHeader() {
+        ResponseEntity<List<FilmMPA>> response = mpaController.findAll();
+
+        assertEquals(5, response.getBody().size());
+        assertEquals("max-age=86400, public", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    public void shouldBeSameMpaInstanceForEveryRequest() {
+        FilmMPA mpa = mpaController.findMpaById(3).getBody();
+
+        assertEquals("PG-13", mpa.getName());
+        assertSame(mpa, mpaController.findMpaById(3).getBody());
+    }
+
+    @Test
+    public void shouldBeMpaNotFoundExceptionWithUnknownId() {
+        assertThrows(MpaNotFoundException.class, () -> mpaController.findMpaById(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldBeIncorrectParameterExceptionWithLackIdParameter() {
+        assertThrows(IncorrectParameterException.class, () -> mpaController.findMpaById(null));
+    }
+}
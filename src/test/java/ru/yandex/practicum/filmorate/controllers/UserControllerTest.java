@@ -5,12 +5,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
 import ru.yandex.practicum.filmorate.exceptions.UserAlreadyExistException;
 import ru.yandex.practicum.filmorate.exceptions.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
 import ru.yandex.practicum.filmorate.models.User;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
@@ -137,7 +144,7 @@ class UserControllerTest {
         userController.addUser(friend);
         userController.addToFriends(user.getId(), friend.getId());
 
-        assertTrue(userController.getUsersFriends(user.getId()).contains(friend));
+        assertTrue(userController.getUsersFriends(user.getId(), true, newRequest()).contains(friend));
     }
 
     @Test
@@ -246,14 +253,14 @@ class UserControllerTest {
         userController.addToFriends(user.getId(), friend1.getId());
         userController.addToFriends(user.getId(), friend2.getId());
 
-        assertEquals(userController.getUsersFriends(user.getId()), List.of(friend1, friend2));
+        assertEquals(userController.getUsersFriends(user.getId(), true, newRequest()), List.of(friend1, friend2));
 
     }
 
     @Test
     public void shouldBeIncorrectParameterExceptionWithLackUserIdParameterByGetUsersFriends() {
         assertThrows(IncorrectParameterException.class, () -> {
-            userController.getUsersFriends(null);
+            userController.getUsersFriends(null, true, newRequest());
         });
     }
 
@@ -293,22 +300,146 @@ class UserControllerTest {
         userController.addToFriends(userId1, userId3);
         userController.addToFriends(userId2, userId4);
 
-        Set<User> test = userController.getCommonFriends(userId1, userId2);
+        Set<User> test = userController.getCommonFriends(userId1, userId2, true);
 
-        assertTrue(userController.getCommonFriends(userId1, userId2).contains(user3));
+        assertTrue(userController.getCommonFriends(userId1, userId2, true).contains(user3));
     }
 
     @Test
     public void shouldBeIncorrectParameterExceptionWithLackUserIdParameterByGetCommonFriends() {
         assertThrows(IncorrectParameterException.class, () -> {
-            userController.getCommonFriends(null, 1);
+            userController.getCommonFriends(null, 1, true);
         });
     }
 
     @Test
     public void shouldBeIncorrectParameterExceptionWithLackFriendIdParameterByGetCommonFriends() {
         assertThrows(IncorrectParameterException.class, () -> {
-            userController.getCommonFriends(1, null);
+            userController.getCommonFriends(1, null, true);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBeGetUsersPageAfterCursor() {
+        User user1 = userController.addUser(User.builder()
+                .email("PageUser1@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("PageUser1")
+                .build());
+        User user2 = userController.addUser(User.builder()
+                .email("PageUser2@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("PageUser2")
+                .build());
+
+        assertEquals(List.of(user2), userController.findAll(user1.getId(), 5, true));
+        assertThrows(IncorrectParameterException.class, () -> userController.findAll(user1.getId(), -1, true));
+    }
+
+    @Test
+    public void shouldBeStreamAllUsersAsNdjson() throws IOException {
+        userController.addUser(User.builder()
+                .email("StreamUser@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("StreamUser")
+                .build());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        userController.streamAll(true).getBody().writeTo(outputStream);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(userController.findAll(null, null, true).size(), lines.length);
+        assertTrue(lines[lines.length - 1].contains("\"login\":\"StreamUser\""));
+    }
+
+    @Test
+    public void shouldBeSkipFriendsIdWhenNotRequested() {
+        User user = userController.addUser(User.builder()
+                .email("SkipFriends1@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("SkipFriends1")
+                .build());
+        User friend = userController.addUser(User.builder()
+                .email("SkipFriends2@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("SkipFriends2")
+                .build());
+        userController.addToFriends(user.getId(), friend.getId());
+        userController.addToFriends(friend.getId(), user.getId());
+        userController.confirmFriendship(user.getId(), friend.getId());
+
+        assertEquals(Set.of(user.getId()),
+                userController.getUsersFriends(user.getId(), true, newRequest()).get(0).getFriendsId());
+        assertTrue(userController.getUsersFriends(user.getId(), false, newRequest()).get(0).getFriendsId().isEmpty());
+    }
+
+    @Test
+    public void shouldBeAutocompleteByLoginOrName() {
+        User byLogin = userController.addUser(User.builder()
+                .email("autocompleteLogin@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("AcUserLogin")
+                .name("Иван")
+                .build());
+        User byName = userController.addUser(User.builder()
+                .email("autocompleteName@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("zzLogin")
+                .name("acuser Пётр")
+                .build());
+
+        assertEquals(List.of(byName, byLogin), userController.autocomplete("ACUSER", 10, false));
+        assertEquals(List.of(byLogin), userController.autocomplete("acuserl", 10, false));
+
+        byLogin.setLogin("RenamedLogin");
+        userController.updateUser(byLogin);
+        assertEquals(List.of(byName), userController.autocomplete("acuser", 10, false));
+        assertThrows(IncorrectParameterException.class, () -> userController.autocomplete(" ", 10, false));
+    }
+
+    @Test
+    public void shouldBeGetUserByEmailAndLogin() {
+        User user = userController.addUser(User.builder()
+                .email("byEmail@mail.ru")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .login("byLogin")
+                .build());
+
+        assertEquals(user.getId(), userController.getUserByEmail("byEmail@mail.ru").getId());
+        assertEquals(user.getId(), userController.getUserByLogin("byLogin").getId());
+        assertThrows(UserNotFoundException.class, () -> userController.getUserByEmail("absent@mail.ru"));
+        assertThrows(UserNotFoundException.class, () -> userController.getUserByLogin("absentLogin"));
+    }
+
+    @Test
+    public void shouldBeAddUsersBatchWithIdsInOrder() {
+        List<User> users = userController.addUsers(List.of(
+                User.builder().email("batch1@mail.ru").login("batch1").birthday(LocalDate.parse("1992-06-12")).build(),
+                User.builder().email("batch2@mail.ru").login("batch2").birthday(LocalDate.parse("1992-06-12")).build()
+        ));
+
+        assertEquals(users.get(0).getId() + 1, users.get(1).getId());
+        assertEquals("batch2", userController.getUserById(users.get(1).getId()).getName());
+    }
+
+    @Test
+    public void shouldBeAddNothingWhenBatchHasExistingLogin() {
+        userController.addUser(User.builder()
+                .email("batchDuplicate@mail.ru")
+                .login("batchDuplicate")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build());
+        int usersCount = userController.findAll(null, null, false).size();
+
+        assertThrows(UserAlreadyExistException.class, () -> userController.addUsers(List.of(
+                User.builder().email("batch3@mail.ru").login("batch3").birthday(LocalDate.parse("1992-06-12")).build(),
+                User.builder().email("batch4@mail.ru").login("batchDuplicate")
+                        .birthday(LocalDate.parse("1992-06-12")).build()
+        )));
+        assertEquals(usersCount, userController.findAll(null, null, false).size());
+    }
+
+    private static WebRequest newRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+}
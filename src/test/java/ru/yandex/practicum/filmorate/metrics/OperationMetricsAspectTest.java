@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.exceptions.UserNotFoundException;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class OperationMetricsAspectTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    public void shouldBeTimeServiceAndStorageOperations() {
+        userService.getAllUsers(false);
+
+        Timer serviceTimer = registry.get(OperationMetricsAspect.TIMER_NAME)
+                .tag("class", "UserService")
+                .tag("method", "getAllUsers")
+                .timer();
+        Timer storageTimer = registry.get(OperationMetricsAspect.TIMER_NAME)
+                .tag("class", "UserDBStorage")
+                .tag("method", "getAll")
+                .timer();
+
+        assertTrue(serviceTimer.count() >= 1);
+        assertTrue(storageTimer.count() >= 1);
+    }
+
+    @Test
+    public void shouldBeCountErrorsByExceptionType() {
+        assertThrows(UserNotFoundException.class, () -> userService.findUserById(Integer.MAX_VALUE));
+        assertThrows(UserNotFoundException.class, () -> userService.findUserById(Integer.MAX_VALUE));
+
+        double errors = registry.get(OperationMetricsAspect.ERRORS_NAME)
+                .tag("class", "UserService")
+                .tag("method", "findUserById")
+                .tag("exception", "UserNotFoundException")
+                .counter()
+                .count();
+
+        assertTrue(errors >= 2);
+    }
+}
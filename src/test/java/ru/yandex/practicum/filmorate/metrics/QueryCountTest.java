@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.models.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@AutoConfigureMockMvc
+class QueryCountTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private FilmService filmService;
+
+    @Test
+    public void shouldBeReportQueriesInResponseHeaders() throws Exception {
+        User user = userService.addUser(newUser("headers"));
+
+        mockMvc.perform(get("/users/" + user.getId() + "/friends"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(QueryCountResponseAdvice.QUERIES_HEADER))
+                .andExpect(header().exists(QueryCountResponseAdvice.TIME_HEADER));
+    }
+
+    @Test
+    public void shouldBeLoadFriendsWithoutQueryPerFriend() {
+        User user = userService.addUser(newUser("owner"));
+        for (int i = 0; i < 10; i++) {
+            User friend = userService.addUser(newUser("friend" + i));
+            userService.addNewFriendToTheUser(user.getId(), friend.getId());
+        }
+
+        QueryStats stats = QueryCounter.measure(() -> userService.getAllUsersFriendsById(user.getId(), true));
+
+        assertTrue(stats.getQueries() <= 2, "friends list issued " + stats.getQueries() + " queries");
+    }
+
+    @Test
+    public void shouldBeLoadPopularFilmsWithoutQueryPerFilm() {
+        QueryStats stats = QueryCounter.measure(() -> filmService.getPopularFilms(10));
+
+        assertTrue(stats.getQueries() <= 3, "popular films issued " + stats.getQueries() + " queries");
+    }
+
+    @Test
+    public void shouldBeNotCountQueriesOutsideMeasure() {
+        QueryStats stats = QueryCounter.measure(() -> {
+        });
+
+        userService.getAllUsers(false);
+
+        assertEquals(0, stats.getQueries());
+        assertNull(QueryCounter.current());
+    }
+
+    private static User newUser(String login) {
+        String unique = login + System.nanoTime();
+
+        return User.builder()
+                .name("Ладимир")
+                .email(unique + "@mail.xyz")
+                .birthday(LocalDate.parse("1973-06-12"))
+                .login(unique)
+                .build();
+    }
+}
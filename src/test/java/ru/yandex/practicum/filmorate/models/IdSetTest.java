@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.models;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JsonTest
+class IdSetTest {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void shouldBeBehaveAsSetOfIntegers() {
+        IdSet ids = IdSet.of(5, 1, 3);
+
+        assertTrue(ids.contains(3));
+        assertTrue(ids.contains(Integer.valueOf(5)));
+        assertFalse(ids.contains("3"));
+        assertTrue(ids.add(7));
+        assertFalse(ids.add(7));
+        assertTrue(ids.remove(1));
+        assertEquals(Set.of(3, 5, 7), ids);
+        assertEquals(ids, Set.of(3, 5, 7));
+        assertEquals(Set.of(3, 5, 7).hashCode(), ids.hashCode());
+    }
+
+    @Test
+    public void shouldBeIntersect() {
+        IdSet first = IdSet.of(1, 2, 3, 100_000);
+        IdSet second = IdSet.of(2, 3, 4, 100_000);
+
+        assertEquals(IdSet.of(2, 3, 100_000), first.intersect(second));
+        assertEquals(3, first.intersectionSize(second));
+    }
+
+    @Test
+    public void shouldBeSerializeToSameJsonAsHashSet() throws Exception {
+        Film film = Film.builder()
+                .id(1)
+                .name("Film")
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .mpa(FilmMPA.builder().id(1).name("G").build())
+                .duration(99)
+                .likes(new HashSet<>(Set.of(3, 1, 2)))
+                .build();
+
+        String json = objectMapper.writeValueAsString(film);
+
+        assertTrue(json.contains("\"likes\":[1,2,3]"));
+        assertEquals(IdSet.of(1, 2, 3), objectMapper.readValue(json, Film.class).getLikes());
+    }
+
+    /**
+     * Сравнение занимаемой памяти с прежним HashSet&lt;Integer&gt; для 200 000 лайков популярного фильма
+     */
+    @Test
+    public void shouldBeTakeMuchLessMemoryThanHashSet() {
+        Random random = new Random(42);
+        Set<Integer> hashSet = new HashSet<>();
+        IdSet idSet = new IdSet();
+
+        while (hashSet.size() < 200_000) {
+            int userId = 1 + random.nextInt(2_000_000);
+            hashSet.add(userId);
+            idSet.add(userId);
+        }
+
+        long hashSetBytes = GraphLayout.parseInstance(hashSet).totalSize();
+        long idSetBytes = GraphLayout.parseInstance(idSet).totalSize();
+
+        assertEquals(hashSet, idSet);
+        assertTrue(idSetBytes * 10 < hashSetBytes,
+                () -> "HashSet<Integer> " + hashSetBytes + " bytes, IdSet " + idSetBytes + " bytes");
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.models.Film;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ReactiveReadServiceTest {
+    private static final int FILMS = 5;
+    private static final int PAGE_SIZE = 2;
+
+    private FilmService filmService;
+    private ReactiveReadService readService;
+
+    @BeforeEach
+    public void setUp() {
+        filmService = mock(FilmService.class);
+        when(filmService.getFilmsPage(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+
+            return IntStream.rangeClosed(afterId + 1, Math.min(afterId + limit, FILMS))
+                    .mapToObj(id -> Film.builder().id(id).build())
+                    .collect(Collectors.toList());
+        });
+        readService = new ReactiveReadService(filmService, mock(UserService.class), PAGE_SIZE, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        readService.shutdown();
+    }
+
+    @Test
+    public void shouldBeStreamAllFilmsPageByPage() {
+        List<Integer> ids = readService.getAllFilms().map(Film::getId).collectList().block();
+
+        assertEquals(List.of(1, 2, 3, 4, 5), ids);
+    }
+
+    @Test
+    public void shouldBeLoadOnlyRequestedPages() {
+        List<Integer> ids = readService.getAllFilms().map(Film::getId).take(3).collectList().block();
+
+        assertEquals(List.of(1, 2, 3), ids);
+        verify(filmService, atMost(2)).getFilmsPage(anyInt(), anyInt());
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.Recommendations;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.LikesMatrix;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecommendationServiceTest {
+    private LikesMatrix likesMatrix;
+    private FilmStorage filmStorage;
+    private RecommendationService service;
+
+    @BeforeEach
+    public void setUp() {
+        likesMatrix = new LikesMatrix(mock(JdbcTemplate.class));
+        filmStorage = mock(FilmStorage.class);
+        when(filmStorage.getByIds(any(int[].class)))
+                .thenAnswer(invocation -> Arrays.stream((int[]) invocation.getArgument(0))
+                        .mapToObj(id -> Film.builder().id(id).build())
+                        .collect(Collectors.toList()));
+        service = new RecommendationService(likesMatrix, filmStorage, mock(UserStorage.class), 2, 1000, 2, 100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void shouldBeRecommendFilmsOfMostSimilarUsers() {
+        like(1, 10, 11, 12);
+        like(2, 10, 11, 12, 20);
+        like(3, 10, 11, 21, 20);
+        like(4, 10, 22);
+
+        assertEquals(List.of(20, 21), recommend(1, 10));
+    }
+
+    @Test
+    public void shouldBeIgnoreRemovedLikes() {
+        like(1, 10);
+        like(2, 10, 20);
+        likesMatrix.removeLike(10, 2);
+
+        assertTrue(recommend(1, 10).isEmpty());
+    }
+
+    @Test
+    public void shouldBeLimitRecommendations() {
+        like(1, 10);
+        like(2, 10, 20, 21, 22);
+
+        assertEquals(List.of(20, 21), recommend(1, 2));
+    }
+
+    @Test
+    public void shouldBeTruncateWhenBudgetIsSpentBeforeScoring() {
+        like(1, 10);
+        like(2, 10, 20);
+        RecommendationService expired = new RecommendationService(likesMatrix, filmStorage, mock(UserStorage.class),
+                2, -1, 2, 100);
+
+        try {
+            Recommendations recommendations = expired.getRecommendations(1, 10);
+
+            assertTrue(recommendations.isTruncated());
+            assertTrue(recommendations.getFilms().isEmpty());
+        } finally {
+            expired.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldBeLoadRecommendedFilmsInOneCall() {
+        like(1, 10);
+        like(2, 10, 20, 21);
+
+        assertEquals(List.of(20, 21), recommend(1, 10));
+        verify(filmStorage, times(1)).getByIds(any(int[].class));
+        verify(filmStorage, never()).findById(anyInt());
+    }
+
+    private void like(int userId, int... filmIds) {
+        for (int filmId : filmIds) {
+            likesMatrix.addLike(filmId, userId);
+        }
+    }
+
+    private List<Integer> recommend(int userId, int limit) {
+        Recommendations recommendations = service.getRecommendations(userId, limit);
+
+        assertFalse(recommendations.isTruncated());
+        return recommendations.getFilms().stream().map(Film::getId).collect(Collectors.toList());
+    }
+}
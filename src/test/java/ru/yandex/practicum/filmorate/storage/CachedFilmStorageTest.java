@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachedFilmStorageTest {
+    private FilmStorage storage;
+    private CachedFilmStorage cachedStorage;
+
+    @BeforeEach
+    public void setUp() {
+        storage = mock(FilmStorage.class);
+        cachedStorage = new CachedFilmStorage(storage, 1024 * 1024);
+        when(storage.findById(1)).thenAnswer(invocation -> createFilm(1));
+    }
+
+    @Test
+    public void shouldBeReadFilmFromStorageOnlyOnce() {
+        Film film = cachedStorage.findById(1);
+
+        assertSame(film, cachedStorage.findById(1));
+        verify(storage, times(1)).findById(1);
+        assertEquals(1, cachedStorage.getStats().hitCount());
+        assertEquals(1, cachedStorage.getStats().missCount());
+    }
+
+    @Test
+    public void shouldBeInvalidateFilmOnLikeUpdateAndDelete() {
+        cachedStorage.findById(1);
+        cachedStorage.addLikeToFilm(1, 10);
+        cachedStorage.findById(1);
+        cachedStorage.deleteLikeToFilm(1, 10);
+        cachedStorage.findById(1);
+        cachedStorage.update(createFilm(1));
+        cachedStorage.findById(1);
+        cachedStorage.deleteById(1);
+        cachedStorage.findById(1);
+
+        verify(storage, times(5)).findById(1);
+    }
+
+    @Test
+    public void shouldBeInvalidateFilmEvenIfStorageFailed() {
+        cachedStorage.findById(1);
+        when(storage.addLikeToFilm(1, 10)).thenThrow(new FilmNotFoundException("Film with id:1 not found"));
+
+        assertThrows(FilmNotFoundException.class, () -> cachedStorage.addLikeToFilm(1, 10));
+        cachedStorage.findById(1);
+
+        verify(storage, times(2)).findById(1);
+    }
+
+    @Test
+    public void shouldBeNotCacheMissingFilm() {
+        when(storage.findById(2)).thenThrow(new FilmNotFoundException("Film with id:2 not found"));
+
+        assertThrows(FilmNotFoundException.class, () -> cachedStorage.findById(2));
+        assertThrows(FilmNotFoundException.class, () -> cachedStorage.findById(2));
+        verify(storage, times(2)).findById(2);
+    }
+
+    @Test
+    public void shouldBeReturnCopyOfCachedLikes() {
+        cachedStorage.getAllLikes(1).add(100);
+
+        assertFalse(cachedStorage.findById(1).getLikes().contains(100));
+    }
+
+    private static Film createFilm(int id) {
+        return Film.builder()
+                .id(id)
+                .name("Film")
+                .description("Description")
+                .releaseDate(LocalDate.parse("2021-01-01"))
+                .mpa(FilmMPA.builder().id(1).name("G").build())
+                .duration(99)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.models.User;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachedUserStorageTest {
+    private UserStorage storage;
+    private CachedUserStorage cachedStorage;
+
+    @BeforeEach
+    public void setUp() {
+        storage = mock(UserStorage.class);
+        cachedStorage = new CachedUserStorage(storage, 1024 * 1024);
+        when(storage.findById(anyInt())).thenAnswer(invocation -> createUser(invocation.getArgument(0)));
+    }
+
+    @Test
+    public void shouldBeInvalidateBothUsersOnFriendshipChanges() {
+        cachedStorage.findById(1);
+        cachedStorage.findById(2);
+        cachedStorage.findById(3);
+
+        cachedStorage.addFriend(1, 2);
+        cachedStorage.findById(1);
+        cachedStorage.findById(2);
+        cachedStorage.confirmFriendship(2, 1);
+        cachedStorage.findById(1);
+        cachedStorage.findById(2);
+        cachedStorage.deleteFriendToTheUser(1, 2);
+        cachedStorage.findById(1);
+        cachedStorage.findById(2);
+        cachedStorage.findById(3);
+
+        verify(storage, times(4)).findById(1);
+        verify(storage, times(4)).findById(2);
+        verify(storage, times(1)).findById(3);
+    }
+
+    @Test
+    public void shouldBeEvictUsersWhenWeightExceeded() {
+        CachedUserStorage smallStorage = new CachedUserStorage(storage, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            smallStorage.findById(i);
+        }
+        smallStorage.cleanUp();
+
+        assertTrue(smallStorage.getEstimatedSize() < 100);
+    }
+
+    private static User createUser(int id) {
+        return User.builder()
+                .id(id)
+                .email("user" + id + "@mail.ru")
+                .login("user" + id)
+                .name("user" + id)
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build();
+    }
+}
@@ -0,0 +1,320 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+import ru.yandex.practicum.filmorate.models.Like;
+import ru.yandex.practicum.filmorate.models.LikeResult;
+import ru.yandex.practicum.filmorate.models.User;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class FilmDBStorageTest {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private UserDBStorage userStorage;
+    @Autowired
+    private FilmDictionary dictionary;
+    @Autowired
+    private LikesMatrix likesMatrix;
+    @Autowired
+    private PopularityIndex popularityIndex;
+    @Autowired
+    private FilmSearchIndex searchIndex;
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FilmStorage filmDBStorage;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger queryCounter = new AtomicInteger();
+    private FilmDBStorage filmStorage;
+
+    @BeforeEach
+    public void setUp() {
+        // вне транзакции JdbcTemplate берет отдельное соединение на каждый запрос
+        DataSource countingDataSource = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                queryCounter.incrementAndGet();
+                return super.getConnection();
+            }
+        };
+        filmStorage = new FilmDBStorage(new JdbcTemplate(countingDataSource), dictionary, likesMatrix,
+                popularityIndex, searchIndex, autocompleteIndex, 500);
+    }
+
+    @Test
+    public void shouldBeSameQueryCountForGetAllRegardlessOfFilmsCount() {
+        addFilmsWithLikes(2);
+        int queriesForFewFilms = countQueries(() -> filmStorage.getAll());
+
+        addFilmsWithLikes(20);
+        int queriesForManyFilms = countQueries(() -> filmStorage.getAll());
+
+        assertEquals(3, queriesForFewFilms);
+        assertEquals(queriesForFewFilms, queriesForManyFilms);
+    }
+
+    @Test
+    public void shouldBeSameQueryCountForGetPopularFilmsRegardlessOfCount() {
+        addFilmsWithLikes(10);
+
+        assertEquals(3, countQueries(() -> filmStorage.getPopularFilms(1)));
+        assertEquals(3, countQueries(() -> filmStorage.getPopularFilms(10)));
+    }
+
+    @Test
+    public void shouldBeLoadLikesGenresAndSharedMpaForEveryFilm() {
+        Film film = addFilmsWithLikes(1);
+
+        Film found = filmStorage.getAll().stream()
+                .filter(f -> f.getId() == film.getId())
+                .findFirst()
+                .orElseThrow();
+
+        assertSame(dictionary.getMpa(1), found.getMpa());
+        assertEquals(film.getLikes(), found.getLikes());
+        assertEquals(found, filmStorage.findById(film.getId()));
+    }
+
+    @Test
+    public void shouldBeKeepLikeCountInSyncWithLikes() {
+        Film film = addFilmsWithLikes(1);
+
+        assertEquals(1, getStoredLikeCount(film.getId()));
+
+        filmStorage.deleteLikeToFilm(film.getId(), film.getLikes().iterator().next());
+
+        assertEquals(0, getStoredLikeCount(film.getId()));
+    }
+
+    @Test
+    public void shouldBeFixLikeCountDriftOnReconcile() {
+        Film film = addFilmsWithLikes(1);
+        jdbcTemplate.update("UPDATE films SET like_count = 1000000 WHERE film_id = ?", film.getId());
+
+        assertEquals(film.getId(), filmStorage.getPopularFilms(1).get(0).getId());
+        assertEquals(1, filmStorage.reconcileLikeCounts());
+        assertEquals(1, getStoredLikeCount(film.getId()));
+        assertEquals(0, filmStorage.reconcileLikeCounts());
+    }
+
+    @Test
+    public void shouldBeAddLikesBatchWithPerItemStatus() {
+        Film film = addFilmsWithLikes(1);
+        int existingUserId = film.getLikes().iterator().next();
+        User user = userStorage.add(User.builder()
+                .email("likesBatch@mail.ru")
+                .login("likesBatch")
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build());
+
+        List<LikeResult> results = filmStorage.addLikes(List.of(
+                Like.builder().filmId(film.getId()).userId(user.getId()).build(),
+                Like.builder().filmId(film.getId()).userId(existingUserId).build(),
+                Like.builder().filmId(film.getId()).userId(user.getId()).build(),
+                Like.builder().filmId(-1).userId(user.getId()).build(),
+                Like.builder().filmId(film.getId()).userId(-1).build()
+        ));
+
+        assertEquals(List.of(
+                LikeResult.Status.ADDED,
+                LikeResult.Status.ALREADY_EXISTS,
+                LikeResult.Status.ALREADY_EXISTS,
+                LikeResult.Status.FILM_NOT_FOUND,
+                LikeResult.Status.USER_NOT_FOUND
+        ), results.stream().map(LikeResult::getStatus).collect(Collectors.toList()));
+        assertEquals(2, getStoredLikeCount(film.getId()));
+        assertEquals(Set.of(existingUserId, user.getId()), filmStorage.getAllLikes(film.getId()));
+    }
+
+    @Test
+    public void shouldBeSameQueryCountForAddLikesRegardlessOfBatchSize() {
+        Film film = addFilmsWithLikes(1);
+        List<Like> likes = userStorage.getAll().stream()
+                .map(user -> Like.builder().filmId(film.getId()).userId(user.getId()).build())
+                .collect(Collectors.toList());
+
+        assertEquals(4, countQueries(() -> filmStorage.addLikes(likes.subList(0, 1))));
+        assertEquals(4, countQueries(() -> filmStorage.addLikes(likes)));
+    }
+
+    @Test
+    public void shouldBeGetPopularFilmsByGenreAndYear() {
+        Film comedy2020 = addFilm("Comedy2020", 1, "2020-05-01");
+        Film comedy2021 = addFilm("Comedy2021", 1, "2021-05-01");
+        Film drama2021 = addFilm("Drama2021", 2, "2021-06-01");
+        addLikes(comedy2020, 1);
+        addLikes(comedy2021, 2);
+        addLikes(drama2021, 3);
+        List<Integer> ours = List.of(comedy2020.getId(), comedy2021.getId(), drama2021.getId());
+
+        assertEquals(List.of(comedy2021.getId(), comedy2020.getId()),
+                idsOf(filmStorage.getPopularFilms(10000, 1, null), ours));
+        assertEquals(List.of(drama2021.getId(), comedy2021.getId()),
+                idsOf(filmStorage.getPopularFilms(10000, null, 2021), ours));
+        assertEquals(List.of(comedy2021.getId()), idsOf(filmStorage.getPopularFilms(10000, 1, 2021), ours));
+        assertEquals(Set.of(1), filmStorage.findById(comedy2021.getId()).getGenres());
+    }
+
+    @Test
+    public void shouldBeMoveFilmBetweenGenresOnUpdate() {
+        Film film = addFilm("Regenred", 1, "2019-01-01");
+        film.setGenres(Set.of(3));
+        filmStorage.update(film);
+
+        assertTrue(idsOf(filmStorage.getPopularFilms(10000, 1, null), List.of(film.getId())).isEmpty());
+        assertEquals(List.of(film.getId()), idsOf(filmStorage.getPopularFilms(10000, 3, null), List.of(film.getId())));
+    }
+
+    @Test
+    public void shouldBeFindFilmsByNameAndDescriptionAfterUpdateAndDelete() {
+        Film film = addFilm("Звёздные войны", 1, "1977-05-25");
+        Film other = addFilm("Войнаимир", 2, "1966-01-01");
+        List<Integer> ours = List.of(film.getId(), other.getId());
+
+        assertEquals(List.of(film.getId()), idsOf(filmStorage.searchFilms("звездная война", 100), ours));
+
+        film.setName("Новая надежда");
+        filmStorage.update(film);
+        assertTrue(idsOf(filmStorage.searchFilms("звездная война", 100), ours).isEmpty());
+        assertEquals(List.of(film.getId()), idsOf(filmStorage.searchFilms("надежды", 100), ours));
+
+        filmStorage.deleteById(other.getId());
+        assertTrue(idsOf(filmStorage.searchFilms("войнаимир", 100), ours).isEmpty());
+    }
+
+    @Test
+    public void shouldBeGetPageInRangeByIdOrByIndexOfNarrowRange() {
+        Film first = addFilm("Range1", 1, "1931-01-01");
+        Film second = addFilm("Range2", 1, "1931-01-02");
+        Film third = addFilm("Range3", 1, "1931-01-03");
+        List<Integer> ours = List.of(first.getId(), second.getId(), third.getId());
+
+        // узкий диапазон дат перебирается по индексу, продолжительность 99 у всех фильмов — обход по id
+        assertEquals(ours, idsOf(filmStorage.getPageInRange(
+                LocalDate.parse("1931-01-01"), LocalDate.parse("1931-01-03"), null, null, 0, 10), ours));
+        assertEquals(List.of(second.getId(), third.getId()), idsOf(filmStorage.getPageInRange(
+                LocalDate.parse("1931-01-01"), LocalDate.parse("1931-01-03"), 99, 99, first.getId(), 10), ours));
+        assertEquals(List.of(second.getId()), idsOf(filmStorage.getPageInRange(
+                null, null, 99, 99, first.getId(), 1), ours));
+
+        assertTrue(explain(FilmDBStorage.SQL_QUERY_FOR_GET_PAGE_IN_RANGE).contains("PRIMARY_KEY"));
+        assertTrue(explain(FilmDBStorage.SQL_QUERY_FOR_GET_PAGE_IN_RELEASE_DATE_RANGE)
+                .contains("IDX_FILMS_RELEASE_DATE: RELEASE_DATE >= ?1"));
+        assertTrue(explain(FilmDBStorage.SQL_QUERY_FOR_GET_PAGE_IN_DURATION_RANGE)
+                .contains("IDX_FILMS_DURATION: FILM_ID > ?5"));
+    }
+
+    @Test
+    public void shouldBeChangeIndexesOnlyAfterCommit() {
+        Film[] added = new Film[1];
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            added[0] = filmDBStorage.add(Film.builder()
+                    .name("Откатанный")
+                    .mpa(FilmMPA.builder().id(1).name("G").build())
+                    .description("Description")
+                    .releaseDate(LocalDate.parse("2001-01-01"))
+                    .duration(99)
+                    .build());
+            status.setRollbackOnly();
+        });
+
+        assertArrayEquals(new int[0], searchIndex.search("откатанный", 10));
+        assertArrayEquals(new int[0], autocompleteIndex.films().complete("откатанный", 10));
+        assertFalse(Arrays.stream(popularityIndex.getTop(Integer.MAX_VALUE, null, 2001))
+                .anyMatch(id -> id == added[0].getId()));
+    }
+
+    private Film addFilm(String name, int genreId, String releaseDate) {
+        return filmStorage.add(Film.builder()
+                .name(name)
+                .mpa(FilmMPA.builder().id(1).name("G").build())
+                .description("Description")
+                .releaseDate(LocalDate.parse(releaseDate))
+                .duration(99)
+                .genre(Set.of(genreId))
+                .build());
+    }
+
+    private void addLikes(Film film, int count) {
+        for (int i = 0; i < count; i++) {
+            String login = "popular" + film.getId() + "x" + i;
+            User user = userStorage.add(User.builder()
+                    .email(login + "@mail.ru")
+                    .login(login)
+                    .birthday(LocalDate.parse("1992-06-12"))
+                    .build());
+            filmStorage.addLikeToFilm(film.getId(), user.getId());
+        }
+    }
+
+    private static List<Integer> idsOf(List<Film> films, List<Integer> ids) {
+        return films.stream().map(Film::getId).filter(ids::contains).collect(Collectors.toList());
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, LocalDate.parse("1931-01-01"),
+                LocalDate.parse("1931-01-03"), 99, 99, 0, 10);
+    }
+
+    private int getStoredLikeCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT like_count FROM films WHERE film_id = ?", Integer.class, filmId);
+    }
+
+    private int countQueries(Runnable runnable) {
+        queryCounter.set(0);
+        runnable.run();
+
+        return queryCounter.get();
+    }
+
+    private Film addFilmsWithLikes(int count) {
+        Film film = null;
+
+        for (int i = 0; i < count; i++) {
+            film = filmStorage.add(Film.builder()
+                    .name("Film" + i)
+                    .mpa(FilmMPA.builder().id(1).name("G").build())
+                    .description("Description")
+                    .releaseDate(LocalDate.parse("2021-01-01"))
+                    .duration(99)
+                    .build());
+            User user = userStorage.add(User.builder()
+                    .email("filmDBStorage" + film.getId() + "@mail.ru")
+                    .login("filmDBStorage" + film.getId())
+                    .birthday(LocalDate.parse("1992-06-12"))
+                    .build());
+            filmStorage.addLikeToFilm(film.getId(), user.getId());
+            film.addLike(user.getId());
+        }
+
+        return film;
+    }
+}
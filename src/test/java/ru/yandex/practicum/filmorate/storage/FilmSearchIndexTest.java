@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.models.Film;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmSearchIndexTest {
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new FilmSearchIndex();
+        index.putFilm(1, "Звёздный путь", "Экипаж корабля исследует далёкие планеты");
+        index.putFilm(2, "Путь домой", "Истории о звёздах кино");
+        index.putFilm(3, "Star Trek", "Space, the final frontier");
+        index.putFilm(4, "Далёкие планеты", "Фантастика");
+    }
+
+    @Test
+    public void shouldBeNormalizeCaseYoAndRussianEndings() {
+        assertEquals(List.of("звездн", "пут"), FilmSearchIndex.tokenize("Звёздный, ПУТЬ!"));
+        assertEquals(List.of("фильм", "фильм", "фильм"), FilmSearchIndex.tokenize("фильм фильмы фильмов"));
+        assertEquals(List.of("star", "trek"), FilmSearchIndex.tokenize("Star-Trek"));
+    }
+
+    @Test
+    public void shouldBeRankNameMatchesAboveDescriptionMatches() {
+        assertArrayEquals(new int[]{4, 1}, index.search("планета", 10));
+        assertArrayEquals(new int[]{1, 2}, index.search("путь", 10));
+        assertArrayEquals(new int[]{1, 2}, index.search("звёздный путь", 10));
+        assertArrayEquals(new int[]{1}, index.search("звёздный путь", 1));
+        assertArrayEquals(new int[]{2}, index.search("звезды", 10));
+        assertArrayEquals(new int[]{3}, index.search("TREK", 10));
+    }
+
+    @Test
+    public void shouldBeReturnNothingForUnknownOrEmptyQuery() {
+        assertArrayEquals(new int[0], index.search("вестерн", 10));
+        assertArrayEquals(new int[0], index.search("!!!", 10));
+    }
+
+    @Test
+    public void shouldBeReindexUpdatedAndForgetRemovedFilms() {
+        index.putFilm(1, "Новая надежда", "Далёкая галактика");
+        index.removeFilm(2);
+
+        assertArrayEquals(new int[0], index.search("путь", 10));
+        assertArrayEquals(new int[]{1}, index.search("надежды", 10));
+        assertArrayEquals(new int[]{4, 1}, index.search("далекий", 10));
+    }
+
+    @Test
+    public void shouldBeIndexBatchLikeSingleFilms() {
+        index.putFilms(List.of(
+                film(1, "Новая надежда", "Далёкая галактика"),
+                film(5, "Звёздные войны", "Далёкая галактика"),
+                film(6, "Путь воина", "Самурай")
+        ));
+
+        assertArrayEquals(new int[]{4, 1, 5}, index.search("далекий", 10));
+        assertArrayEquals(new int[]{5}, index.search("звёздный", 10));
+        assertArrayEquals(new int[]{2, 6}, index.search("путь", 10));
+        assertArrayEquals(new int[]{1}, index.search("надежда", 10));
+    }
+
+    private static Film film(int id, String name, String description) {
+        return Film.builder().id(id).name(name).description(description).build();
+    }
+}
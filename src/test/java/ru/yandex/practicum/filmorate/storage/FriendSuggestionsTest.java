@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FriendSuggestionsTest {
+    private static final int[] NO_FRIENDS = new int[0];
+
+    @Test
+    public void shouldBeRankByMutualFriendsAndSkipDirectFriends() {
+        Map<Integer, int[]> graph = Map.of(
+                1, new int[]{2, 3, 4},
+                2, new int[]{1, 5, 6},
+                3, new int[]{1, 5, 6, 7},
+                4, new int[]{1, 3, 6}
+        );
+
+        int[] suggestions = FriendSuggestions.suggest(1, id -> graph.getOrDefault(id, NO_FRIENDS), 10);
+
+        assertArrayEquals(new int[]{6, 5, 7}, suggestions);
+    }
+
+    @Test
+    public void shouldBeKeepOnlyTopLimitWithLowerIdFirstOnTie() {
+        Map<Integer, int[]> graph = Map.of(
+                1, new int[]{2},
+                2, new int[]{1, 6, 7, 8, 9}
+        );
+
+        assertArrayEquals(new int[]{6, 7}, FriendSuggestions.suggest(1, id -> graph.getOrDefault(id, NO_FRIENDS), 2));
+    }
+
+    @Test
+    public void shouldBeEmptyWithoutFriends() {
+        assertEquals(0, FriendSuggestions.suggest(1, id -> NO_FRIENDS, 10).length);
+    }
+}
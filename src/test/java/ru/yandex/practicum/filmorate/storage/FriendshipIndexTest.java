@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FriendshipIndexTest {
+    private JdbcTemplate jdbcTemplate;
+    private FriendshipIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        index = new FriendshipIndex(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldBeFriendOnlyForRequestingUserUntilAccepted() {
+        index.addFriendship(1, 2);
+
+        assertArrayEquals(new int[]{2}, index.getFriends(1));
+        assertArrayEquals(new int[0], index.getFriends(2));
+
+        index.acceptFriendship(1, 2);
+
+        assertArrayEquals(new int[]{1}, index.getFriends(2));
+    }
+
+    @Test
+    public void shouldBeKeepFriendsSortedAndWithoutDuplicates() {
+        index.addFriendship(1, 5);
+        index.addFriendship(1, 3);
+        index.addFriendship(4, 1);
+        index.acceptFriendship(4, 1);
+        index.addFriendship(3, 1);
+        index.acceptFriendship(3, 1);
+
+        assertArrayEquals(new int[]{3, 4, 5}, index.getFriends(1));
+    }
+
+    @Test
+    public void shouldBeGetCommonFriends() {
+        index.addFriendship(1, 3);
+        index.addFriendship(1, 4);
+        index.addFriendship(2, 4);
+        index.addFriendship(5, 2);
+        index.acceptFriendship(5, 2);
+        index.addFriendship(5, 1);
+        index.acceptFriendship(5, 1);
+
+        assertArrayEquals(new int[]{4, 5}, index.getCommonFriends(1, 2));
+    }
+
+    @Test
+    public void shouldBeRemoveBothSidesOfFriendship() {
+        index.addFriendship(1, 2);
+        index.acceptFriendship(1, 2);
+        index.removeFriendship(1, 2);
+
+        assertArrayEquals(new int[0], index.getFriends(1));
+        assertArrayEquals(new int[0], index.getFriends(2));
+    }
+
+    @Test
+    public void shouldBeKeepFriendshipAddedDuringRefresh() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Integer> refresh = executor.submit(() -> index.refresh());
+            loading.await();
+            Future<?> friendship = executor.submit(() -> index.addFriendship(1, 2));
+
+            // заявка ждет конца перечитывания, а не пишется в старую карту
+            assertThrows(TimeoutException.class, () -> friendship.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            refresh.get(10, TimeUnit.SECONDS);
+            friendship.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertArrayEquals(new int[]{2}, index.getFriends(1));
+    }
+}
@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.FilmAlreadyExistException;
+import ru.yandex.practicum.filmorate.models.Film;
+import ru.yandex.practicum.filmorate.models.FilmMPA;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryFilmStorageTest {
+    private static final int THREADS = 8;
+    private static final int FILMS = 4;
+    private static final int USERS_PER_THREAD = 2000;
+
+    private InMemoryFilmStorage storage;
+    private int[] filmIds;
+
+    @BeforeEach
+    public void setUp() {
+        storage = new InMemoryFilmStorage();
+        filmIds = new int[FILMS];
+
+        for (int i = 0; i < FILMS; i++) {
+            filmIds[i] = storage.add(createFilm(i)).getId();
+        }
+    }
+
+    @Test
+    public void shouldBeExactLikeCountsUnderConcurrentLikes() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                int userId = thread * USERS_PER_THREAD + i;
+
+                for (int filmId : filmIds) {
+                    storage.addLikeToFilm(filmId, userId);
+                }
+                // каждый второй лайк снимается, а каждый лайк ставится еще раз
+                if (i % 2 == 0) {
+                    storage.deleteLikeToFilm(filmIds[0], userId);
+                }
+                storage.addLikeToFilm(filmIds[1], userId);
+            }
+        });
+
+        assertEquals(THREADS * USERS_PER_THREAD / 2, storage.findById(filmIds[0]).getLikeCount());
+        for (int i = 1; i < FILMS; i++) {
+            assertEquals(THREADS * USERS_PER_THREAD, storage.findById(filmIds[i]).getLikeCount());
+        }
+    }
+
+    @Test
+    public void shouldBeGetAllSnapshotNotChangedByLaterWrites() {
+        Collection<Film> snapshot = storage.getAll();
+        storage.addLikeToFilm(filmIds[0], 1);
+        storage.add(createFilm(FILMS));
+
+        assertEquals(FILMS, snapshot.size());
+        assertTrue(snapshot.stream().allMatch(film -> film.getLikes().isEmpty()));
+    }
+
+    @Test
+    public void shouldBeReadConsistentFilmsWhileLiking() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                if (thread % 2 == 0) {
+                    storage.addLikeToFilm(filmIds[i % FILMS], thread * USERS_PER_THREAD + i);
+                } else {
+                    for (Film film : storage.getPopularFilms(FILMS)) {
+                        assertEquals(film.getLikes().size(), film.getLikes().toIntArray().length);
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void shouldBeKeepLikesOnUpdateAndNotChangeReturnedFilms() {
+        Film liked = storage.addLikeToFilm(filmIds[0], 1);
+        storage.addLikeToFilm(filmIds[0], 2);
+
+        Film renamed = createFilm(0);
+        renamed.setId(filmIds[0]);
+        renamed.setName("Renamed");
+        storage.update(renamed);
+        storage.deleteLikeToFilm(filmIds[0], 1);
+
+        assertEquals(Set.of(1), liked.getLikes());
+        assertEquals(Set.of(2), storage.findById(filmIds[0]).getLikes());
+        assertEquals(Set.of(2), storage.getAllLikes(filmIds[0]));
+        assertEquals(filmIds[0], storage.getPopularFilms(1).get(0).getId());
+    }
+
+    @Test
+    public void shouldBeGetPageInRangeByIdOrByIndexOfNarrowRange() {
+        for (int i = FILMS; i < 100; i++) {
+            storage.add(createFilm(i));
+        }
+        LocalDate first = LocalDate.parse("2000-01-01");
+
+        // 10 дат из 100 фильмов меньше порога √(100 · 5), перебирается диапазон дат
+        assertEquals(List.of(4, 5, 6, 7, 8), ids(storage.getPageInRange(first.plusDays(3), first.plusDays(12),
+                90, 90, 3, 5)));
+        assertEquals(List.of(9, 10, 11, 12, 13), ids(storage.getPageInRange(first.plusDays(3), first.plusDays(12),
+                null, null, 8, 10)));
+        // продолжительность 90 у всех фильмов, обход по id
+        assertEquals(List.of(51, 52, 53), ids(storage.getPageInRange(null, null, 90, 90, 50, 3)));
+        assertEquals(List.of(100), ids(storage.getPageInRange(first.plusDays(50), null, 90, null, 99, 5)));
+        assertTrue(storage.getPageInRange(null, null, 91, null, 0, 5).isEmpty());
+    }
+
+    @Test
+    public void shouldBeRejectDuplicatesByNameReleaseDateAndMpa() {
+        assertThrows(FilmAlreadyExistException.class, () -> storage.add(createFilm(0)));
+
+        Film film = createFilm(1);
+        film.setId(filmIds[0]);
+        assertThrows(FilmAlreadyExistException.class, () -> storage.update(film));
+
+        Film renamed = createFilm(0);
+        renamed.setId(filmIds[0]);
+        renamed.setName("Renamed");
+        storage.update(renamed);
+        assertEquals(filmIds.length + 1, storage.add(createFilm(0)).getId());
+
+        storage.deleteById(filmIds[1]);
+        assertNotEquals(filmIds[1], storage.add(createFilm(1)).getId());
+    }
+
+    @Test
+    public void shouldBeStoreNothingFromBatchWithDuplicate() {
+        assertThrows(FilmAlreadyExistException.class,
+                () -> storage.addAll(List.of(createFilm(FILMS), createFilm(FILMS + 1), createFilm(0))));
+        assertThrows(FilmAlreadyExistException.class,
+                () -> storage.addAll(List.of(createFilm(FILMS), createFilm(FILMS))));
+
+        assertEquals(FILMS, storage.getAll().size());
+        assertTrue(storage.searchFilms("Film" + FILMS, 10).isEmpty());
+        assertTrue(storage.autocomplete("Film" + FILMS, 10).isEmpty());
+        assertEquals(2, storage.addAll(List.of(createFilm(FILMS), createFilm(FILMS + 1))).size());
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                int number = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(number);
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    private static Film createFilm(int number) {
+        return Film.builder()
+                .name("Film" + number)
+                .description("description")
+                .releaseDate(LocalDate.parse("2000-01-01").plusDays(number))
+                .mpa(FilmMPA.builder().id(1).build())
+                .duration(90)
+                .build();
+    }
+}
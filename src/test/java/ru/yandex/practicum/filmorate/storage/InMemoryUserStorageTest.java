@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
+import ru.yandex.practicum.filmorate.exceptions.UserAlreadyExistException;
+import ru.yandex.practicum.filmorate.exceptions.UserNotFoundException;
+import ru.yandex.practicum.filmorate.models.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserStorageTest {
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 500;
+
+    private InMemoryUserStorage storage;
+    private int hubId;
+    private int[][] userIds;
+
+    @BeforeEach
+    public void setUp() {
+        storage = new InMemoryUserStorage();
+        hubId = storage.add(createUser(0)).getId();
+        userIds = new int[THREADS][USERS_PER_THREAD];
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                userIds[thread][i] = storage.add(createUser(1 + thread * USERS_PER_THREAD + i)).getId();
+            }
+        }
+    }
+
+    @Test
+    public void shouldBeFriendOnlyAfterConfirmation() {
+        int userId = userIds[0][0];
+        storage.addFriend(userId, hubId);
+
+        assertEquals(List.of(storage.findById(hubId)), storage.getAllUsersFriendsById(userId));
+        assertTrue(storage.getAllUsersFriendsById(hubId).isEmpty());
+        assertTrue(storage.findById(userId).getFriendsId().isEmpty());
+
+        storage.confirmFriendship(hubId, userId);
+
+        assertEquals(Set.of(hubId), storage.findById(userId).getFriendsId());
+        assertEquals(Set.of(userId), storage.findById(hubId).getFriendsId());
+        assertEquals(List.of(storage.findById(userId)), storage.getAllUsersFriendsById(hubId));
+    }
+
+    @Test
+    public void shouldBeConsistentFriendshipsUnderConcurrentUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                int[] ids = userIds[thread];
+                // заявки пользователь -> hub и hub -> пользователь берут блокировки в разном порядке
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        storage.addFriend(ids[i], hubId);
+                        storage.addFriend(hubId, ids[i]);
+                        storage.confirmFriendship(hubId, ids[i]);
+
+                        if (i % 2 == 0) {
+                            storage.deleteFriendToTheUser(ids[i], hubId);
+                        }
+                    }
+                    return null;
+                }));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ids.length; i++) {
+                        storage.getCommonFriends(ids[i], hubId);
+                        storage.getAllUsersFriendsById(hubId);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(THREADS * USERS_PER_THREAD / 2, storage.findById(hubId).getFriendsId().size());
+        assertEquals(THREADS * USERS_PER_THREAD, storage.getAllUsersFriendsById(hubId).size());
+
+        for (User user : storage.getAll()) {
+            for (int friendId : user.getFriendsId()) {
+                assertTrue(storage.findById(friendId).getFriendsId().contains(user.getId()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldBeRemoveDeletedUserFromFriends() {
+        int userId = userIds[0][0];
+        storage.addFriend(userId, hubId);
+        storage.confirmFriendship(hubId, userId);
+        storage.deleteById(userId);
+
+        assertTrue(storage.findById(hubId).getFriendsId().isEmpty());
+        assertTrue(storage.getAllUsersFriendsById(hubId).isEmpty());
+    }
+
+    @Test
+    public void shouldBeRemoveUnconfirmedRequestsToDeletedUser() {
+        int userId = userIds[0][0];
+        int friendId = userIds[0][1];
+        storage.addFriend(userId, hubId);
+        storage.confirmFriendship(hubId, userId);
+        storage.addFriend(hubId, friendId);
+        storage.addFriend(userId, friendId);
+        storage.deleteById(friendId);
+
+
+        assertEquals(List.of(storage.findById(hubId)), storage.getAllUsersFriendsById(userId));
+        assertEquals(List.of(storage.findById(userId)), storage.getAllUsersFriendsById(hubId));
+        assertTrue(storage.getFriendSuggestions(userId, 10, false).isEmpty());
+        int otherId = userIds[0][2];
+        storage.addFriend(otherId, userId);
+        assertEquals(List.of(storage.findById(hubId)), storage.getFriendSuggestions(otherId, 10, false));
+    }
+
+    @Test
+    public void shouldBeFindByEmailAndLoginAfterUpdate() {
+        User user = storage.findById(userIds[0][0]);
+
+        assertEquals(user, storage.findByEmail(user.getEmail()));
+        assertEquals(user.getId(), storage.findByLogin(user.getLogin()).getId());
+
+        User renamed = User.builder()
+                .id(user.getId())
+                .email("renamed@mail.ru")
+                .login("renamed")
+                .birthday(user.getBirthday())
+                .build();
+        storage.update(renamed);
+
+        assertEquals(user.getId(), storage.findByEmail("renamed@mail.ru").getId());
+        assertEquals(user.getId(), storage.findByLogin("renamed").getId());
+        assertThrows(UserNotFoundException.class, () -> storage.findByEmail(user.getEmail()));
+        assertThrows(UserNotFoundException.class, () -> storage.findByLogin(user.getLogin()));
+
+        storage.deleteById(user.getId());
+        assertThrows(UserNotFoundException.class, () -> storage.findByEmail("renamed@mail.ru"));
+    }
+
+    @Test
+    public void shouldBeRejectTakenEmailOrLogin() {
+        User taken = storage.findById(userIds[0][0]);
+        User other = storage.findById(userIds[0][1]);
+
+        assertThrows(UserAlreadyExistException.class, () -> storage.add(User.builder()
+                .email("new@mail.ru")
+                .login(taken.getLogin())
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build()));
+        assertThrows(UserAlreadyExistException.class, () -> storage.update(User.builder()
+                .id(other.getId())
+                .email(taken.getEmail())
+                .login(other.getLogin())
+                .birthday(other.getBirthday())
+                .build()));
+        assertEquals(other, storage.findByLogin(other.getLogin()));
+    }
+
+    @Test
+    public void shouldBeNotChangeStoredUserThroughReturnedCopy() {
+        int userId = userIds[0][0];
+        User found = storage.findById(userId);
+        found.setName("changed");
+        found.addNewFriend(hubId);
+        storage.getAll().forEach(user -> user.addNewFriend(hubId));
+
+        assertEquals("user1", storage.findById(userId).getName());
+        assertTrue(storage.findById(userId).getFriendsId().isEmpty());
+        assertTrue(storage.findById(hubId).getFriendsId().isEmpty());
+    }
+
+    @Test
+    public void shouldBeRejectFriendshipWithSelf() {
+        int userId = userIds[0][0];
+
+        assertThrows(IncorrectParameterException.class, () -> storage.addFriend(userId, userId));
+        assertTrue(storage.getAllUsersFriendsById(userId).isEmpty());
+    }
+
+    @Test
+    public void shouldBeReturnPageAfterId() {
+        storage.deleteById(userIds[0][1]);
+
+        List<Integer> page = new ArrayList<>();
+        storage.getPage(userIds[0][0], 3).forEach(user -> page.add(user.getId()));
+
+        assertEquals(List.of(userIds[0][2], userIds[0][3], userIds[0][4]), page);
+    }
+
+    private static User createUser(int number) {
+        return User.builder()
+                .email("user" + number + "@mail.ru")
+                .login("user" + number)
+                .name("user" + number)
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.yandex.practicum.filmorate.models.IdSet;
+import ru.yandex.practicum.filmorate.models.Like;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class LikesMatrixTest {
+    private JdbcTemplate jdbcTemplate;
+    private LikesMatrix matrix;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        matrix = new LikesMatrix(jdbcTemplate);
+    }
+
+    @Test
+    public void shouldBeAddBatchWithoutChangingPublishedSets() {
+        matrix.addLike(10, 1);
+        IdSet published = matrix.getUsers(10);
+
+        matrix.addLikes(List.of(like(10, 2), like(11, 1), like(10, 3)));
+
+        assertEquals(IdSet.of(1), published);
+        assertEquals(IdSet.of(1, 2, 3), matrix.getUsers(10));
+        assertEquals(IdSet.of(10, 11), matrix.getFilms(1));
+        assertEquals(IdSet.of(10), matrix.getFilms(3));
+    }
+
+    @Test
+    public void shouldBeKeepLikeAddedDuringRefresh() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Integer> refresh = executor.submit(() -> matrix.refresh());
+            loading.await();
+            Future<?> like = executor.submit(() -> matrix.addLike(10, 1));
+
+            // лайк ждет конца перечитывания, а не пишется в старый снимок
+            assertThrows(TimeoutException.class, () -> like.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            refresh.get(10, TimeUnit.SECONDS);
+            like.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(IdSet.of(10), matrix.getFilms(1));
+        assertEquals(IdSet.of(1), matrix.getUsers(10));
+    }
+
+    private static Like like(int filmId, int userId) {
+        return Like.builder().filmId(filmId).userId(userId).build();
+    }
+}
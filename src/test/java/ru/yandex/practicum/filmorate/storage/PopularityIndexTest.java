@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PopularityIndexTest {
+    private PopularityIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new PopularityIndex(mock(JdbcTemplate.class));
+        index.putFilm(1, 2020, List.of(1));
+        index.putFilm(2, 2021, List.of(1, 2));
+        index.putFilm(3, 2021, List.of(2));
+    }
+
+    @Test
+    public void shouldBeRankByLikesThenById() {
+        index.changeLikes(3, 2);
+        index.changeLikes(1, 1);
+
+        assertArrayEquals(new int[]{1, 2}, index.getTop(10, 1, null));
+        assertArrayEquals(new int[]{3, 2}, index.getTop(10, null, 2021));
+        assertArrayEquals(new int[]{3, 2}, index.getTop(10, 2, 2021));
+        assertArrayEquals(new int[]{3}, index.getTop(1, 2, null));
+    }
+
+    @Test
+    public void shouldBeKeepLikesAndMoveSegmentsOnUpdate() {
+        index.changeLikes(1, 5);
+        index.putFilm(1, 2021, List.of(2));
+
+        assertArrayEquals(new int[]{2}, index.getTop(10, 1, null));
+        assertArrayEquals(new int[]{1, 2, 3}, index.getTop(10, 2, 2021));
+        assertArrayEquals(new int[0], index.getTop(10, null, 2020));
+    }
+
+    @Test
+    public void shouldBeKeepFilmWhenUpdatedWithSameSegments() {
+        index.putFilm(2, 2021, List.of(1, 2));
+
+        assertArrayEquals(new int[]{1, 2}, index.getTop(10, 1, null));
+    }
+
+    @Test
+    public void shouldBeKeepLikesChangedDuringRefresh() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        PopularityIndex loaded = new PopularityIndex(jdbcTemplate);
+        ResultSet film = mock(ResultSet.class);
+        when(film.getInt("film_id")).thenReturn(1);
+        when(film.getInt("like_count")).thenReturn(3);
+        when(film.getDate("release_date")).thenReturn(Date.valueOf("2020-01-01"));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            invocation.<RowCallbackHandler>getArgument(1).processRow(film);
+            return null;
+        }).when(jdbcTemplate).query(contains("like_count"), any(RowCallbackHandler.class));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Integer> refresh = executor.submit(() -> loaded.refresh());
+            loading.await();
+            Future<?> like = executor.submit(() -> loaded.changeLikes(1, 1));
+
+            assertThrows(TimeoutException.class, () -> like.get(200, TimeUnit.MILLISECONDS));
+            release.countDown();
+            refresh.get(10, TimeUnit.SECONDS);
+            like.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(4, loaded.getLikeCount(1));
+        assertArrayEquals(new int[]{1}, loaded.getTop(10, null, 2020));
+    }
+
+    @Test
+    public void shouldBeRemoveFilmFromAllSegments() {
+        index.removeFilm(2);
+
+        assertArrayEquals(new int[]{1}, index.getTop(10, 1, null));
+        assertArrayEquals(new int[]{3}, index.getTop(10, null, 2021));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+    private PrefixIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new PrefixIndex();
+        index.put(1, "Звёздный путь");
+        index.put(2, "Звёздные войны");
+        index.put(3, "Звонок");
+        index.put(4, "Star Trek", "star");
+    }
+
+    @Test
+    public void shouldBeCompleteCaseInsensitiveWithYoFolded() {
+        assertArrayEquals(new int[]{2, 1}, index.complete("звезд", 10));
+        assertArrayEquals(new int[]{2, 1, 3}, index.complete("ЗВ", 10));
+        assertArrayEquals(new int[]{4}, index.complete("star", 10));
+        assertArrayEquals(new int[0], index.complete("путь", 10));
+    }
+
+    @Test
+    public void shouldBeRankByRankThenAlphabetically() {
+        PrefixIndex ranked = new PrefixIndex(id -> id == 1 ? 5 : 0);
+        ranked.put(1, "Звёздный путь");
+        ranked.put(2, "Звёздные войны");
+        ranked.put(3, "Звонок");
+
+        assertArrayEquals(new int[]{1, 2, 3}, ranked.complete("зв", 10));
+        assertArrayEquals(new int[]{1, 2}, ranked.complete("зв", 2));
+    }
+
+    @Test
+    public void shouldBeRankAllMatchesOfPrefixWithManyMatches() {
+        int count = PrefixIndex.CACHED_PREFIX_MIN_MATCHES * 3;
+        int[] likes = new int[count + 1];
+        PrefixIndex ranked = new PrefixIndex(id -> likes[id]);
+
+        for (int id = 1; id <= count; id++) {
+            ranked.put(id, String.format("фильм %05d", id));
+        }
+        // самый популярный фильм по алфавиту последний
+        likes[count] = 10;
+
+        assertArrayEquals(new int[]{count, 1, 2}, ranked.complete("ф", 3));
+        assertArrayEquals(new int[]{count, 1}, ranked.complete("фильм", 2));
+
+        likes[count / 2] = 20;
+        ranked.rankChanged(count / 2);
+        assertArrayEquals(new int[]{count / 2, count, 1}, ranked.complete("ф", 3));
+
+        likes[count / 2] = 0;
+        ranked.rankChanged(count / 2);
+        ranked.remove(count);
+        assertArrayEquals(new int[]{1, 2, 3}, ranked.complete("ф", 3));
+
+        for (int id = 1; id <= PrefixIndex.TOP_SIZE; id++) {
+            ranked.remove(id);
+        }
+        likes[count - 1] = 5;
+        ranked.rankChanged(count - 1);
+        assertArrayEquals(new int[]{count - 1, PrefixIndex.TOP_SIZE + 1}, ranked.complete("ф", 2));
+        assertEquals(PrefixIndex.TOP_SIZE + 1, ranked.complete("ф", PrefixIndex.TOP_SIZE * 2)[1]);
+    }
+
+    @Test
+    public void shouldBeReplaceAndRemoveEntries() {
+        index.put(1, "Новая надежда");
+        index.remove(3);
+
+        assertArrayEquals(new int[]{2}, index.complete("зв", 10));
+        assertArrayEquals(new int[]{1}, index.complete("нов", 10));
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.models.IdSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeIndexTest {
+    private RangeIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new RangeIndex();
+        index.put(1, -100);
+        index.put(2, 0);
+        index.put(3, 90);
+        index.put(4, 90);
+        index.put(5, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldBeFindValuesInInclusiveRange() {
+        assertEquals(IdSet.of(3, 4), index.range(90, 90));
+        assertEquals(IdSet.of(1, 2), index.range(-100, 89));
+        assertEquals(IdSet.of(1, 2, 3, 4, 5), index.range(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertTrue(index.range(91, 90).isEmpty());
+    }
+
+    @Test
+    public void shouldBeCountValuesInRangeUpToMax() {
+        assertEquals(2, index.count(90, 90, 10));
+        assertEquals(3, index.count(Integer.MIN_VALUE, Integer.MAX_VALUE, 3));
+        assertEquals(0, index.count(91, 90, 10));
+    }
+
+    @Test
+    public void shouldBeMoveUpdatedAndForgetRemovedValues() {
+        index.put(3, 0);
+        index.put(4, 90);
+        index.remove(2);
+
+        assertEquals(IdSet.of(3), index.range(0, 0));
+        assertEquals(IdSet.of(4), index.range(90, 90));
+        assertEquals(4, index.size());
+    }
+}
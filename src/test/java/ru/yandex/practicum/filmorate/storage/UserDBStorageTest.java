@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exceptions.IncorrectParameterException;
+import ru.yandex.practicum.filmorate.exceptions.UserAlreadyExistException;
+import ru.yandex.practicum.filmorate.models.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+class UserDBStorageTest {
+    @Autowired
+    private UserDBStorage userStorage;
+    @Autowired
+    private FriendshipIndex friendshipIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void shouldBeChangeFriendshipIndexOnlyAfterCommit() {
+        User user = addUser("rollbackUser");
+        User friend = addUser("rollbackFriend");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userStorage.addFriend(user.getId(), friend.getId());
+            status.setRollbackOnly();
+        });
+
+        assertArrayEquals(new int[0], friendshipIndex.getFriends(user.getId()));
+        assertTrue(userStorage.findById(user.getId()).getFriendsId().isEmpty());
+
+        userStorage.addFriend(user.getId(), friend.getId());
+
+        assertArrayEquals(new int[]{friend.getId()}, friendshipIndex.getFriends(user.getId()));
+    }
+
+    @Test
+    public void shouldBeThrowUserAlreadyExistWhenBatchRepeatsStoredLogin() {
+        addUser("batchLogin");
+        List<User> users = List.of(
+                User.builder().email("batchOther@mail.ru").login("batchOther")
+                        .birthday(LocalDate.parse("1992-06-12")).build(),
+                User.builder().email("batchCopy@mail.ru").login("batchLogin")
+                        .birthday(LocalDate.parse("1992-06-12")).build());
+
+        assertThrows(UserAlreadyExistException.class, () -> userStorage.addAll(users));
+    }
+
+    @Test
+    public void shouldBeRejectFriendshipWithSelf() {
+        User user = addUser("selfFriend");
+
+        assertThrows(IncorrectParameterException.class, () -> userStorage.addFriend(user.getId(), user.getId()));
+        assertTrue(userStorage.getAllUsersFriendsById(user.getId()).isEmpty());
+    }
+
+    private User addUser(String login) {
+        return userStorage.add(User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .birthday(LocalDate.parse("1992-06-12"))
+                .build());
+    }
+}